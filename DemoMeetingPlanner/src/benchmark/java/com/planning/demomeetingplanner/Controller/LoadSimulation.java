@@ -0,0 +1,311 @@
+package com.planning.demomeetingplanner.Controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planning.demomeetingplanner.DemoMeetingPlannerApplication;
+import com.planning.demomeetingplanner.Model.RejectionReason;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+//simulation de charge de bout en bout : démarre l'application sur une base H2 embarquée (profil memory), importe
+//un parc de salles synthétique puis envoie des requêtes aux vrais endpoints à un débit fixé (boucle ouverte),
+//avec un plafond de requêtes simultanées ; le rapport JSON donne les percentiles HdrHistogram, le débit et les refus
+//la latence est mesurée depuis l'instant où la requête aurait dû partir : un serveur saturé ne ralentit pas la
+//charge et ses retards restent visibles dans les percentiles
+public final class LoadSimulation {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9"};
+
+    private LoadSimulation() {
+    }
+
+    //arguments clé=valeur, tous facultatifs :
+    //url (instance déjà démarrée, sinon application embarquée), rooms, rate (requêtes/s), concurrency,
+    //duration et warmup (secondes), days (jours ouvrés réservables), seed, report (fichier JSON)
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("rooms", "200");
+        options.put("rate", "500");
+        options.put("concurrency", "64");
+        options.put("duration", "30");
+        options.put("warmup", "5");
+        options.put("days", "20");
+        options.put("seed", "42");
+        options.put("report", "target/load-report.json");
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Argument attendu sous la forme clé=valeur : " + arg);
+            }
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        int rate = Integer.parseInt(options.get("rate"));
+        int concurrency = Integer.parseInt(options.get("concurrency"));
+
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.get("url");
+        if (baseUrl == null) {
+            context = startEmbedded();
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        }
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+            // les réunions commencent la semaine prochaine : aucune n'est libérée pendant la simulation
+            SyntheticWorkload workload = new SyntheticWorkload(Long.parseLong(options.get("seed")),
+                    LocalDate.now().plusWeeks(1), Integer.parseInt(options.get("days")));
+            List<Integer> roomIds = importRooms(client, baseUrl, workload, Integer.parseInt(options.get("rooms")));
+
+            // chauffe : compilation JIT et caches côté serveur, les mesures sont jetées ; ses réservations restent
+            // en base, elles portent donc sur les jours suivant la période mesurée pour ne pas lui prendre de créneaux
+            SyntheticWorkload warmup = new SyntheticWorkload(Long.parseLong(options.get("seed")) + 1,
+                    workload.lastDay().plusDays(1), Integer.parseInt(options.get("days")));
+            run(client, baseUrl, warmup, roomIds, rate, concurrency, Long.parseLong(options.get("warmup")));
+            Stats stats = run(client, baseUrl, workload, roomIds, rate, concurrency, Long.parseLong(options.get("duration")));
+
+            Map<String, Object> report = stats.report(options);
+            File file = new File(options.get("report"));
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, report);
+            stats.print();
+            System.out.println("Rapport écrit dans " + file.getAbsolutePath());
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    // base H2 propre à la simulation, sans journal ni JMX, sur un port libre
+    private static ConfigurableApplicationContext startEmbedded() {
+        return new SpringApplicationBuilder(DemoMeetingPlannerApplication.class)
+                .profiles("memory")
+                // arguments de ligne de commande : ils passent devant application-memory.properties, au contraire de properties()
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load-simulation;DB_CLOSE_DELAY=-1;MODE=MySQL",
+                        "--planner.journal.enabled=false",
+                        "--spring.jmx.enabled=false");
+    }
+
+    //importe les salles générées puis relit leurs identifiants
+    private static List<Integer> importRooms(HttpClient client, String baseUrl, SyntheticWorkload workload, int rooms)
+            throws Exception {
+        HttpResponse<String> imported = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/importRooms"))
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(workload.roomsCsv(rooms)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (imported.statusCode() != 200) {
+            throw new IllegalStateException("Import des salles refusé : " + imported.body());
+        }
+        HttpResponse<String> listed = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/allRoom")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        List<Integer> roomIds = new ArrayList<>();
+        for (JsonNode room : MAPPER.readTree(listed.body())) {
+            roomIds.add(room.get("id").asInt());
+        }
+        if (roomIds.isEmpty()) {
+            throw new IllegalStateException("Aucune salle après l'import : " + imported.body());
+        }
+        return roomIds;
+    }
+
+    //envoie rate requêtes par seconde pendant la durée donnée, au plus concurrency à la fois
+    private static Stats run(HttpClient client, String baseUrl, SyntheticWorkload workload, List<Integer> roomIds,
+                             int rate, int concurrency, long seconds) throws Exception {
+        Stats stats = new Stats();
+        Semaphore inFlight = new Semaphore(concurrency);
+        long interval = 1_000_000_000L / rate;
+        long total = rate * seconds;
+        long begin = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = begin + i * interval;
+            for (long wait = intended - System.nanoTime(); wait > 0; wait = intended - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            // plafond atteint : l'attente compte dans la latence de la requête
+            inFlight.acquire();
+            Operation operation = Operation.pick(workload.nextInt(100));
+            client.sendAsync(operation.request(baseUrl, workload, roomIds), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, failure) -> {
+                        stats.record(operation, intended, response, failure);
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(concurrency);
+        stats.elapsedNanos = System.nanoTime() - begin;
+        return stats;
+    }
+
+    //endpoints appelés et leur part dans la charge (en %)
+    private enum Operation {
+        RESERVE_ROOM(50),
+        FIND_ROOM(20),
+        FREE_SLOTS(20),
+        ALL_ROOM(10);
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+
+        static Operation pick(int percent) {
+            for (Operation operation : values()) {
+                percent -= operation.weight;
+                if (percent < 0) {
+                    return operation;
+                }
+            }
+            return ALL_ROOM;
+        }
+
+        HttpRequest request(String baseUrl, SyntheticWorkload workload, List<Integer> roomIds) {
+            SyntheticWorkload.Request meeting = workload.meeting();
+            return switch (this) {
+                case RESERVE_ROOM -> post(baseUrl + "/api/reserveRoom", Map.of(
+                        "room", Map.of("id", roomIds.get(workload.nextInt(roomIds.size()))),
+                        "meeting", meetingJson(meeting)));
+                case FIND_ROOM -> post(baseUrl + "/api/findRoom", meetingJson(meeting));
+                case FREE_SLOTS -> get(baseUrl + "/api/freeSlots?date=" + meeting.date() + "&duration="
+                        + meeting.duration() + "&people=" + meeting.people() + "&type=" + meeting.type());
+                case ALL_ROOM -> get(baseUrl + "/api/allRoom?limit=20");
+            };
+        }
+
+        private static Map<String, Object> meetingJson(SyntheticWorkload.Request meeting) {
+            Map<String, Object> json = new HashMap<>();
+            json.put("name", "Charge " + meeting.type());
+            json.put("meetingDate", meeting.date().toString());
+            json.put("startTime", meeting.start() + ":00");
+            json.put("endTime", meeting.end() + ":00");
+            json.put("numberOfpeople", meeting.people());
+            json.put("meetingType", meeting.type().name());
+            return json;
+        }
+
+        private static HttpRequest post(String url, Object body) {
+            try {
+                return HttpRequest.newBuilder(URI.create(url))
+                        .timeout(Duration.ofSeconds(60))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)))
+                        .build();
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static HttpRequest get(String url) {
+            return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(60)).GET().build();
+        }
+    }
+
+    //mesures d'une phase, par endpoint : latences en microsecondes, codes HTTP et motifs de refus
+    private static final class Stats {
+
+        private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, Map<String, LongAdder>> statuses = new EnumMap<>(Operation.class);
+        private final Map<Operation, Map<String, LongAdder>> rejections = new EnumMap<>(Operation.class);
+        private long elapsedNanos;
+
+        Stats() {
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new ConcurrentHistogram(3));
+                statuses.put(operation, new ConcurrentHashMap<>());
+                rejections.put(operation, new ConcurrentHashMap<>());
+            }
+        }
+
+        void record(Operation operation, long intended, HttpResponse<String> response, Throwable failure) {
+            latencies.get(operation).recordValue(Math.max((System.nanoTime() - intended) / 1_000, 0));
+            String status = failure != null ? "erreur" : String.valueOf(response.statusCode());
+            statuses.get(operation).computeIfAbsent(status, key -> new LongAdder()).increment();
+            if (failure != null) {
+                rejections.get(operation).computeIfAbsent(failure.getClass().getSimpleName(), key -> new LongAdder()).increment();
+            } else if (response.statusCode() >= 400) {
+                rejections.get(operation).computeIfAbsent(reason(response), key -> new LongAdder()).increment();
+            }
+        }
+
+        // motif de refus reconnu à son message, sinon le code HTTP
+        private static String reason(HttpResponse<String> response) {
+            for (RejectionReason reason : RejectionReason.values()) {
+                if (reason.getMessage().equals(response.body())) {
+                    return reason.tag();
+                }
+            }
+            return "http_" + response.statusCode();
+        }
+
+        Map<String, Object> report(Map<String, String> options) {
+            double seconds = elapsedNanos / 1e9;
+            long requests = 0;
+            Map<String, Object> operations = new LinkedHashMap<>();
+            for (Operation operation : Operation.values()) {
+                Histogram histogram = latencies.get(operation);
+                requests += histogram.getTotalCount();
+                Map<String, Object> latencyMs = new LinkedHashMap<>();
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    latencyMs.put(PERCENTILE_NAMES[i], histogram.getValueAtPercentile(PERCENTILES[i]) / 1e3);
+                }
+                latencyMs.put("max", histogram.getMaxValue() / 1e3);
+                latencyMs.put("mean", histogram.getMean() / 1e3);
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("requests", histogram.getTotalCount());
+                entry.put("throughput", histogram.getTotalCount() / seconds);
+                entry.put("latencyMs", latencyMs);
+                entry.put("statuses", counts(statuses.get(operation)));
+                entry.put("rejections", counts(rejections.get(operation)));
+                operations.put(operation.name().toLowerCase(), entry);
+            }
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("options", options);
+            report.put("durationSeconds", seconds);
+            report.put("requests", requests);
+            report.put("throughput", requests / seconds);
+            report.put("operations", operations);
+            return report;
+        }
+
+        void print() {
+            double seconds = elapsedNanos / 1e9;
+            for (Operation operation : Operation.values()) {
+                Histogram histogram = latencies.get(operation);
+                System.out.printf("%-12s : %8.0f req/s, p50 %6.1f ms, p99 %7.1f ms, p99.9 %7.1f ms, max %7.1f ms, refus %s%n",
+                        operation.name().toLowerCase(), histogram.getTotalCount() / seconds,
+                        histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(99) / 1e3,
+                        histogram.getValueAtPercentile(99.9) / 1e3, histogram.getMaxValue() / 1e3,
+                        counts(rejections.get(operation)));
+            }
+        }
+
+        private static Map<String, Long> counts(Map<String, LongAdder> adders) {
+            Map<String, Long> counts = new TreeMap<>();
+            adders.forEach((key, adder) -> counts.put(key, adder.sum()));
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.planning.demomeetingplanner.Controller;
+
+import com.planning.demomeetingplanner.Model.EquipmentType;
+import com.planning.demomeetingplanner.Model.MeetingType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//générateur de données réalistes pour la simulation de charge : parc de salles, mélange d'équipements
+//et répartition des types de réunion, toujours identiques pour une même graine
+final class SyntheticWorkload {
+
+    // beaucoup de petites salles, quelques grandes
+    private static final int[] CAPACITIES = {4, 6, 8, 12, 20, 40};
+    private static final int[] CAPACITY_WEIGHTS = {25, 25, 20, 15, 10, 5};
+    // les réunions simples dominent, les visioconférences viennent ensuite
+    private static final MeetingType[] TYPES = {MeetingType.RS, MeetingType.VC, MeetingType.SPEC, MeetingType.RC};
+    private static final int[] TYPE_WEIGHTS = {55, 20, 15, 10};
+    // durées en minutes : surtout des réunions d'une heure ou moins
+    private static final int[] DURATIONS = {30, 45, 60, 90, 120};
+    private static final int[] DURATION_WEIGHTS = {30, 15, 35, 12, 8};
+    // part des demandes hors règles (week-end, après 20h), refusées avant toute recherche de salle
+    private static final int INVALID_PERCENT = 3;
+
+    private final Random random;
+    private final List<LocalDate> workingDays;
+
+    SyntheticWorkload(long seed, LocalDate firstDay, int days) {
+        this.random = new Random(seed);
+        this.workingDays = new ArrayList<>(days);
+        for (LocalDate day = firstDay; workingDays.size() < days; day = day.plusDays(1)) {
+            if (day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                workingDays.add(day);
+            }
+        }
+    }
+
+    // CSV de /api/importRooms : les grandes salles sont mieux équipées que les petites
+    String roomsCsv(int count) {
+        StringBuilder csv = new StringBuilder("name,capacity,equipment\n");
+        for (int i = 1; i <= count; i++) {
+            int capacity = CAPACITIES[pick(CAPACITY_WEIGHTS)];
+            boolean large = capacity >= 12;
+            List<String> equipment = new ArrayList<>();
+            // une salle sans besoin particulier accueille les réunions simples
+            if (random.nextInt(100) < 70) {
+                equipment.add(EquipmentType.NEANT.name());
+            }
+            if (random.nextInt(100) < (large ? 90 : 45)) {
+                equipment.add(EquipmentType.ECRAN.name());
+            }
+            if (random.nextInt(100) < 55) {
+                equipment.add(EquipmentType.TABLEAU.name());
+            }
+            if (random.nextInt(100) < (large ? 70 : 30)) {
+                equipment.add(EquipmentType.WEBCAM.name());
+            }
+            if (random.nextInt(100) < (large ? 65 : 20)) {
+                equipment.add(EquipmentType.PIEUVRE.name());
+            }
+            csv.append("Salle ").append(i).append(',').append(capacity).append(',')
+                    .append(String.join("|", equipment)).append('\n');
+        }
+        return csv.toString();
+    }
+
+    // Demande de réunion aléatoire, au quart d'heure
+    Request meeting() {
+        MeetingType type = TYPES[pick(TYPE_WEIGHTS)];
+        int duration = DURATIONS[pick(DURATION_WEIGHTS)];
+        LocalDate date = workingDays.get(random.nextInt(workingDays.size()));
+        int latestStart = 20 * 60 - duration;
+        int start = 8 * 60 + random.nextInt((latestStart - 8 * 60) / 15 + 1) * 15;
+        if (random.nextInt(100) < INVALID_PERCENT) {
+            if (random.nextBoolean()) {
+                date = date.with(DayOfWeek.SATURDAY);
+            } else {
+                start = latestStart + 15;
+            }
+        }
+        // petites réunions surtout : de 2 à 8 personnes, parfois jusqu'à 30
+        int people = random.nextInt(100) < 80 ? 2 + random.nextInt(7) : 9 + random.nextInt(22);
+        return new Request(date, LocalTime.of(start / 60, start % 60), duration, people, type);
+    }
+
+    // Dernier jour ouvré des demandes générées
+    LocalDate lastDay() {
+        return workingDays.get(workingDays.size() - 1);
+    }
+
+    int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    private int pick(int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int draw = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            draw -= weights[i];
+            if (draw < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    record Request(LocalDate date, LocalTime start, int duration, int people, MeetingType type) {
+
+        LocalTime end() {
+            return start.plusMinutes(duration);
+        }
+    }
+}
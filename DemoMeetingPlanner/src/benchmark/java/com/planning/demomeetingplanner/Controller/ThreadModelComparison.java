@@ -0,0 +1,91 @@
+package com.planning.demomeetingplanner.Controller;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//charge en boucle fermée contre une instance démarrée : N clients simultanés, chacun enchaîne ses requêtes
+//à lancer une fois contre l'instance par défaut (pool de threads Tomcat), une fois contre le profil virtual
+public final class ThreadModelComparison {
+
+    private ThreadModelComparison() {
+    }
+
+    // arguments : url de base, chemin, nombres de clients (ex: 1000,10000), requêtes par client
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        String path = args.length > 1 ? args[1] : "/api/allRoom?limit=20";
+        int[] clientCounts = Arrays.stream((args.length > 2 ? args[2] : "1000,10000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int requestsPerClient = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+
+        // chauffe : charge les classes et remplit les caches côté serveur
+        run(client, request, 50, 20);
+        for (int clients : clientCounts) {
+            Result result = run(client, request, clients, requestsPerClient);
+            System.out.printf("%6d clients : %8.0f req/s, p50 %6.1f ms, p99 %7.1f ms, max %7.1f ms, %d erreur(s)%n",
+                    clients, result.throughput(), result.percentile(0.50), result.percentile(0.99),
+                    result.percentile(1.0), result.errors());
+        }
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int clients, int requestsPerClient) {
+        long[] latencies = new long[clients * requestsPerClient];
+        AtomicInteger recorded = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        CompletableFuture<?>[] sessions = new CompletableFuture<?>[clients];
+        long begin = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            sessions[c] = session(client, request, requestsPerClient, latencies, recorded, errors);
+        }
+        CompletableFuture.allOf(sessions).join();
+        long elapsed = System.nanoTime() - begin;
+        long[] measured = Arrays.copyOf(latencies, recorded.get());
+        Arrays.sort(measured);
+        return new Result(measured, errors.get(), measured.length / (elapsed / 1e9));
+    }
+
+    // un client : la requête suivante part quand la précédente a répondu
+    private static CompletableFuture<Void> session(HttpClient client, HttpRequest request, int remaining,
+                                                   long[] latencies, AtomicInteger recorded, AtomicInteger errors) {
+        if (remaining == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long sent = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    if (failure != null || response.statusCode() >= 500) {
+                        errors.incrementAndGet();
+                    } else {
+                        latencies[recorded.getAndIncrement()] = System.nanoTime() - sent;
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> session(client, request, remaining - 1, latencies, recorded, errors));
+    }
+
+    private record Result(long[] sortedLatencies, int errors, double throughput) {
+
+        double percentile(double p) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.*;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//jeux de données synthétiques pour les benchmarks
+final class PlannerFixtures {
+
+    // premier lundi utilisé pour les réunions générées
+    static final LocalDate FIRST_DAY = LocalDate.of(2024, 6, 3);
+
+    private PlannerFixtures() {
+    }
+
+    // Salles de capacités variées avec un mélange réaliste d'équipements
+    static List<Room> rooms(int count, Random random) {
+        List<Room> rooms = new ArrayList<>(count);
+        EquipmentType[] types = EquipmentType.values();
+        for (int id = 1; id <= count; id++) {
+            Room room = new Room();
+            room.setId(id);
+            room.setName("Salle " + id);
+            room.setCapacity(4 + random.nextInt(40));
+            room.setAvailability(true);
+            room.setOpenTime(Time.valueOf("08:00:00"));
+            room.setCloseTime(Time.valueOf("20:00:00"));
+            for (EquipmentType type : types) {
+                if (random.nextInt(3) == 0) {
+                    Equipment equipment = new Equipment();
+                    equipment.setId(id * types.length + type.ordinal());
+                    equipment.setName(type.name().toLowerCase());
+                    equipment.setDescription(type.name());
+                    equipment.setEquipmentType(type);
+                    room.getEquipment().add(equipment);
+                }
+            }
+            rooms.add(room);
+        }
+        return rooms;
+    }
+
+    // Réunions réparties sur les jours ouvrés de quelques semaines, au quart d'heure
+    static List<Meeting> meetings(int count, Random random) {
+        List<Meeting> meetings = new ArrayList<>(count);
+        MeetingType[] types = MeetingType.values();
+        for (int i = 0; i < count; i++) {
+            int startMinute = 8 * 60 + random.nextInt(40) * 15;
+            int endMinute = startMinute + 30 + random.nextInt(6) * 15;
+            Meeting meeting = new Meeting();
+            meeting.setId(i + 1);
+            meeting.setName("Réunion " + i);
+            meeting.setMeetingDate(Date.valueOf(FIRST_DAY.plusWeeks(random.nextInt(4)).plusDays(random.nextInt(5))));
+            meeting.setStartTime(Time.valueOf(LocalTime.ofSecondOfDay(startMinute * 60L)));
+            meeting.setEndTime(Time.valueOf(LocalTime.ofSecondOfDay(endMinute * 60L)));
+            meeting.setNumberOfpeople(1 + random.nextInt(30));
+            meeting.setMeetingType(types[random.nextInt(types.length)]);
+            meetings.add(meeting);
+        }
+        return meetings;
+    }
+}
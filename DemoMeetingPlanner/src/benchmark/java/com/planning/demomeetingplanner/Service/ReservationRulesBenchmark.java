@@ -0,0 +1,93 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.Meeting;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.Room;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//règles de réservation évaluées sur des catalogues et des plannings de tailles croissantes
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationRulesBenchmark {
+
+    // masque pour parcourir les requêtes pré-générées en boucle
+    private static final int REQUESTS = 1 << 12;
+
+    @Param({"100", "1000", "10000"})
+    public int rooms;
+
+    private ReservationRules rules;
+    private Room[] requestRooms;
+    private Meeting[] requestMeetings;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        RoomScheduleIndex scheduleIndex = new RoomScheduleIndex();
+        RoomCatalogIndex catalogIndex = new RoomCatalogIndex(null, false);
+        List<Room> catalog = PlannerFixtures.rooms(rooms, random);
+        catalog.forEach(catalogIndex::register);
+        rules = new ReservationRules(scheduleIndex, catalogIndex);
+
+        // remplir le planning : environ huit réservations par salle sur quatre semaines
+        for (Meeting meeting : PlannerFixtures.meetings(rooms * 8, random)) {
+            Room room = catalog.get(random.nextInt(rooms));
+            scheduleIndex.tryBook(room.getId(), PlanningTime.epochDay(meeting.getMeetingDate()),
+                    PlanningTime.minuteOfDay(meeting.getStartTime()),
+                    PlanningTime.minuteOfDay(meeting.getEndTime()));
+        }
+
+        requestRooms = new Room[REQUESTS];
+        requestMeetings = PlannerFixtures.meetings(REQUESTS, random).toArray(new Meeting[0]);
+        for (int i = 0; i < REQUESTS; i++) {
+            requestRooms[i] = catalog.get(random.nextInt(rooms));
+        }
+    }
+
+    // chemin rapide : s'arrête à la première règle en échec
+    @Benchmark
+    public int check() {
+        int i = next();
+        Meeting meeting = requestMeetings[i];
+        return rules.check(requestRooms[i].getId(), PlanningTime.epochDay(meeting.getMeetingDate()),
+                PlanningTime.minuteOfDay(meeting.getStartTime()), PlanningTime.minuteOfDay(meeting.getEndTime()),
+                meeting.getMeetingType());
+    }
+
+    // mode explication : toutes les règles sont évaluées
+    @Benchmark
+    public int explain() {
+        int i = next();
+        Meeting meeting = requestMeetings[i];
+        return rules.explain(requestRooms[i].getId(), PlanningTime.epochDay(meeting.getMeetingDate()),
+                PlanningTime.minuteOfDay(meeting.getStartTime()), PlanningTime.minuteOfDay(meeting.getEndTime()),
+                meeting.getMeetingType());
+    }
+
+    @Benchmark
+    public boolean hasRequiredEquipment() {
+        int i = next();
+        return rules.hasRequiredEquipment(requestRooms[i].getId(), requestMeetings[i].getMeetingType());
+    }
+
+    @Benchmark
+    public int checkSlot() {
+        int i = next();
+        Meeting meeting = requestMeetings[i];
+        return rules.checkSlot(PlanningTime.epochDay(meeting.getMeetingDate()),
+                PlanningTime.minuteOfDay(meeting.getStartTime()), PlanningTime.minuteOfDay(meeting.getEndTime()));
+    }
+
+    private int next() {
+        return cursor = (cursor + 1) & (REQUESTS - 1);
+    }
+}
@@ -0,0 +1,36 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planning.demomeetingplanner.Model.RoomView;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//sérialisation JSON de la liste des salles (vues) renvoyée par /api/allRoom
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoomListingBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int rooms;
+
+    private ObjectMapper objectMapper;
+    private List<RoomView> catalog;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        catalog = PlannerFixtures.rooms(rooms, new Random(42)).stream().map(RoomView::of).toList();
+    }
+
+    @Benchmark
+    public byte[] serializeRooms() throws Exception {
+        return objectMapper.writeValueAsBytes(catalog);
+    }
+}
@@ -0,0 +1,69 @@
+package com.planning.demomeetingplanner.Controller;
+
+import com.planning.demomeetingplanner.Model.ImportReport;
+import com.planning.demomeetingplanner.Service.MeetingIngestionService;
+import com.planning.demomeetingplanner.Service.RoomImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+//imports en masse : le corps de la requête est lu en flux, sans être chargé entièrement en mémoire
+@RestController
+@RequestMapping("/api")
+public class ImportController {
+
+    private final RoomImportService roomImportService;
+    private final MeetingIngestionService meetingIngestionService;
+
+    @Autowired
+    public ImportController(RoomImportService roomImportService, MeetingIngestionService meetingIngestionService) {
+        this.roomImportService = roomImportService;
+        this.meetingIngestionService = meetingIngestionService;
+    }
+
+    @PostMapping(value = "/importRooms", consumes = MediaType.APPLICATION_JSON_VALUE)//tableau JSON de salles
+    public ResponseEntity<?> importRoomsJson(InputStream body) {
+        try {
+            ImportReport report = roomImportService.importJson(body);
+            return ResponseEntity.ok(report);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Import impossible : " + e.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/importRooms", consumes = "text/csv")//CSV nom,capacité,équipements
+    public ResponseEntity<?> importRoomsCsv(Reader body) {
+        try {
+            ImportReport report = roomImportService.importCsv(body);
+            return ResponseEntity.ok(report);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Import impossible : " + e.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/ingestMeetingOrders", consumes = MediaType.APPLICATION_NDJSON_VALUE)//une demande JSON par ligne
+    public ResponseEntity<?> ingestMeetingOrdersNdjson(Reader body) {
+        try {
+            return ResponseEntity.ok(meetingIngestionService.ingestNdjson(body));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Import impossible : " + e.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/ingestMeetingOrders", consumes = "text/csv")//CSV nom,date,début,fin,participants,type
+    public ResponseEntity<?> ingestMeetingOrdersCsv(Reader body) {
+        try {
+            return ResponseEntity.ok(meetingIngestionService.ingestCsv(body));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Import impossible : " + e.getMessage());
+        }
+    }
+}
@@ -3,21 +3,48 @@ package com.planning.demomeetingplanner.Controller;
 import com.planning.demomeetingplanner.Exception.EmptyObjectList;
 import com.planning.demomeetingplanner.Exception.MissingArgument;
 import com.planning.demomeetingplanner.Exception.NotFoundObject;
+import com.planning.demomeetingplanner.Model.BatchReservationResult;
 import com.planning.demomeetingplanner.Model.Equipment;
 import com.planning.demomeetingplanner.Model.Meeting;
+import com.planning.demomeetingplanner.Model.MeetingType;
+import com.planning.demomeetingplanner.Model.Rejection;
+import com.planning.demomeetingplanner.Model.RejectionReason;
+import com.planning.demomeetingplanner.Model.Reservation;
 import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Model.RoomView;
+import com.planning.demomeetingplanner.Model.UtilisationReport;
 import com.planning.demomeetingplanner.Repository.RepoEquipment;
 import com.planning.demomeetingplanner.Repository.RepoMeeting;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
 import com.planning.demomeetingplanner.Repository.RepoRoom;
+import com.planning.demomeetingplanner.Service.BatchReservationService;
+import com.planning.demomeetingplanner.Service.BatchSchedulerService;
+import com.planning.demomeetingplanner.Service.FreeSlotSearch;
+import com.planning.demomeetingplanner.Service.KeysetListing;
+import com.planning.demomeetingplanner.Service.ReservationQueue;
 import com.planning.demomeetingplanner.Service.ReservationRequestService;
+import com.planning.demomeetingplanner.Service.ReservationRules;
 import com.planning.demomeetingplanner.Service.ReservationService;
+import com.planning.demomeetingplanner.Service.RoomCatalogCache;
+import com.planning.demomeetingplanner.Service.RoomCatalogIndex;
+import com.planning.demomeetingplanner.Service.RoomChangeFeed;
+import com.planning.demomeetingplanner.Service.RoomQueryService;
+import com.planning.demomeetingplanner.Service.RoomReleaseScheduler;
+import com.planning.demomeetingplanner.Service.RoomScheduleIndex;
+import com.planning.demomeetingplanner.Service.RoomUtilisation;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.sql.Time;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,10 +64,48 @@ public class ManageController {
     @Autowired
     public RepoEquipment repoEquipment;
 
+    @Autowired
+    public RepoReservation repoReservation;
+
+    @Autowired
+    public RoomScheduleIndex roomScheduleIndex;
+
+    @Autowired
+    public RoomCatalogIndex roomCatalogIndex;
+
+    @Autowired
+    public KeysetListing keysetListing;
+
+    @Autowired
+    public RoomQueryService roomQueryService;
+
+    @Autowired
+    public RoomCatalogCache roomCatalogCache;
+
+    @Autowired
+    public ReservationQueue reservationQueue;
+
+    @Autowired
+    public FreeSlotSearch freeSlotSearch;
+
+    @Autowired
+    public RoomChangeFeed roomChangeFeed;
+
+    @Autowired
+    public BatchReservationService batchReservationService;
+
+    @Autowired
+    public RoomUtilisation roomUtilisation;
+
+    @Autowired
+    public RoomReleaseScheduler roomReleaseScheduler;
+
     private final ReservationService reservationService;
+    private final BatchSchedulerService batchSchedulerService;
     @Autowired
-    public ManageController(ReservationService reservationService) {
+    public ManageController(ReservationService reservationService, BatchSchedulerService batchSchedulerService) {
         this.reservationService = reservationService;
+        this.batchSchedulerService = batchSchedulerService;
     }
 
 
@@ -51,7 +116,7 @@ public class ManageController {
             if(room!=null){
                 //si la salle récupérée n'est pas null, on s'assure de mettre les valeurs par default
                 room.setAvailability(true);
-                room.setCloseTime(defaultOpenTime);
+                room.setOpenTime(defaultOpenTime);
                 room.setCloseTime(defaultCloseTime);
                 repoRoom.save(room);//saved Before to asign equipments
                 //puis on sauvegarde les équipements
@@ -64,6 +129,9 @@ public class ManageController {
                 }
                 //sauvegarde la salle définitivement
                 repoRoom.saveAndFlush(room);
+                roomCatalogIndex.register(room);
+                roomCatalogCache.evict(room.getId());
+                roomChangeFeed.added(room.getId(), roomCatalogCache.room(room.getId()).orElse(null));
                 return true;
             } else {
                 throw new MissingArgument("La variable Room ne peut pas être null !");
@@ -74,10 +142,14 @@ public class ManageController {
         }
     }
 
-    @GetMapping("/allRoom")//cette methode retourne toutes les salles
-    public ResponseEntity<?> displayAllRoom() {
+    @GetMapping("/allRoom")//cette methode retourne toutes les salles, ou une page si after/limit sont fournis
+    public ResponseEntity<?> displayAllRoom(@RequestParam(required = false) Integer after,
+                                            @RequestParam(required = false) Integer limit) {
         try {
-            List<Room> rooms = repoRoom.findAll();
+            if (after != null || limit != null) {
+                return ResponseEntity.ok(keysetListing.page(after, limit, roomCatalogCache::roomsAfter, RoomView::id));
+            }
+            List<RoomView> rooms = roomCatalogCache.allRooms();
             if (rooms.isEmpty()) {
                 // Si la liste est vide, lever exception et le code d'état approprié
                 throw new EmptyObjectList("La liste des salles de réunion est vide.");
@@ -94,6 +166,13 @@ public class ManageController {
         }
     }
 
+    @GetMapping(value = "/allRoom/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)//toutes les salles, une par ligne
+    public ResponseEntity<StreamingResponseBody> streamAllRoom() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(keysetListing.stream(roomQueryService::roomsAfter, RoomView::id));
+    }
+
     @DeleteMapping("/deleteRoom/{id}")//méthode pour modifier les infos d'une salle
     public ResponseEntity<String> deleteMeetingRoom(@PathVariable Integer id) {
         try {
@@ -109,6 +188,12 @@ public class ManageController {
 
                 // Supprimer la salle de réunion elle-même
                 repoRoom.deleteById(id);
+                // Oublier ses créneaux réservés
+                roomScheduleIndex.removeRoom(id);
+                roomReleaseScheduler.forget(id);
+                roomCatalogIndex.remove(id);
+                roomCatalogCache.evict(id);
+                roomChangeFeed.deleted(id);
 
                 // Retourner un message de succès
                 return ResponseEntity.ok("L'élément avec l'ID " + id + " a été supprimé avec succès");
@@ -144,11 +229,14 @@ public class ManageController {
                     repoEquipment.saveAllAndFlush(updatedEquipments);
                 }
 
-                // Mettre à jour les autres champs de la salle de réunion sans toucher à l'ID
-                BeanUtils.copyProperties(roomUpdated, existingRoom, "id");
+                // Mettre à jour les autres champs de la salle de réunion sans toucher à l'ID ni à la version
+                BeanUtils.copyProperties(roomUpdated, existingRoom, "id", "version");
 
                 // Sauvegarder la salle de réunion mise à jour
                 repoRoom.saveAndFlush(existingRoom);
+                roomCatalogIndex.register(existingRoom);
+                roomCatalogCache.evict(id);
+                roomChangeFeed.updated(id, roomCatalogCache.room(id).orElse(null));
                 return ResponseEntity.ok("l'élément avec l'ID"+ id +" bien été modifié");
             } else {
                 // Si la salle de réunion avec l'ID donné n'existe pas, retournez une exception et le statut HTTP approprié
@@ -181,8 +269,12 @@ public class ManageController {
     }
 
     @GetMapping("/allMeetingOrder")
-    public ResponseEntity<?> displayAllMeetingOrder() {
+    public ResponseEntity<?> displayAllMeetingOrder(@RequestParam(required = false) Integer after,
+                                                    @RequestParam(required = false) Integer limit) {
         try {
+            if (after != null || limit != null) {
+                return ResponseEntity.ok(keysetListing.page(after, limit, repoMeeting::findByIdGreaterThanOrderByIdAsc, Meeting::getId));
+            }
             List<Meeting> meetings = repoMeeting.findAll();
             if (meetings.isEmpty()) {
                 // Si la liste est vide, retournez une erreur
@@ -199,6 +291,13 @@ public class ManageController {
         }
     }
 
+    @GetMapping(value = "/allMeetingOrder/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllMeetingOrder() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(keysetListing.stream(repoMeeting::findByIdGreaterThanOrderByIdAsc, Meeting::getId));
+    }
+
     @PutMapping("/updateMeeting/{id}")
     public ResponseEntity<?> updateMeeting(@RequestBody Meeting meetingUpdated, @PathVariable Integer id) {
         try {
@@ -240,33 +339,216 @@ public class ManageController {
 
 
     //Now let's call reservation service and implements some method
-    @PostMapping("/reserveRoom")
-    public ResponseEntity<?> reserveRoom(@RequestBody ReservationRequestService reservationRequestService) {
+    @PostMapping("/reserveRoom")//explain=true liste toutes les règles en échec au lieu de la première
+    public ResponseEntity<?> reserveRoom(@RequestBody ReservationRequestService reservationRequestService,
+                                         @RequestParam(defaultValue = "false") boolean explain) {
+        Room room = reservationRequestService.getRoom();
+        Meeting meeting = reservationRequestService.getMeeting();
+        if (isIncomplete(room, meeting)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("La salle, la date, les heures et le type de réunion sont obligatoires !");
+        }
+        int failedRules;
         try {
-            Room room = reservationRequestService.getRoom();
-            Meeting meeting = reservationRequestService.getMeeting();
-            if(repoRoom.existsById(room.getId())) {
-                boolean reservationStatus = reservationService.reserveRoom(room, meeting);
-                if(reservationStatus) {
-                    return ResponseEntity.ok().body("La salle a été réservée avec succès.");
-                } else {
-                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("La réservation de la salle a échoué pour une raison inconnue");
-                }
-            } else {
-                throw new NotFoundObject("Cette salle est introuvable dans notre liste de salles disponible");
+            failedRules = reservationService.reserveRoom(room, meeting);
+        } catch (CannotAcquireLockException e) {
+            // mode cluster : la salle est restée prise par une autre instance, sans conflit de créneau
+            return busy(e);
+        }
+        if (failedRules == ReservationRules.ACCEPTED) {
+            return ResponseEntity.ok().body("La salle a été réservée avec succès.");
+        }
+        RejectionReason reason = RejectionReason.first(failedRules);
+        HttpStatus status = switch (reason) {
+            case UNKNOWN_ROOM -> HttpStatus.NOT_FOUND;
+            case SLOT_CONFLICT -> HttpStatus.CONFLICT;
+            default -> HttpStatus.BAD_REQUEST;
+        };
+        if (explain) {
+            // le refus peut venir de la base (réservation d'une autre instance) : on garde son bit
+            return ResponseEntity.status(status).body(Rejection.of(failedRules | reservationService.explain(room, meeting)));
+        }
+        return ResponseEntity.status(status).body(reason.getMessage());
+    }
+
+    @PostMapping("/reserveRooms")//réserve un lot de demandes en une transaction, tout ou rien ou au mieux
+    public ResponseEntity<?> reserveRooms(@RequestBody List<ReservationRequestService> reservationRequests,
+                                          @RequestParam(defaultValue = "ALL_OR_NOTHING") BatchReservationResult.Mode mode) {
+        if (reservationRequests == null || reservationRequests.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Le lot de réservations est vide.");
+        }
+        if (reservationRequests.size() > batchReservationService.getMaxItems()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Un lot ne peut pas dépasser " + batchReservationService.getMaxItems() + " demandes.");
+        }
+        for (int i = 0; i < reservationRequests.size(); i++) {
+            Room room = reservationRequests.get(i).getRoom();
+            Meeting meeting = reservationRequests.get(i).getMeeting();
+            if (isIncomplete(room, meeting)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("Demande " + i + " : la salle, la date, les heures et le type de réunion sont obligatoires !");
+            }
+        }
+        BatchReservationResult result;
+        try {
+            result = batchReservationService.reserveAll(reservationRequests, mode);
+        } catch (CannotAcquireLockException e) {
+            return busy(e);
+        }
+        // tout ou rien refusé : rien n'a été enregistré, le détail indique les demandes en cause
+        HttpStatus status = mode == BatchReservationResult.Mode.ALL_OR_NOTHING && result.accepted() < reservationRequests.size()
+                ? HttpStatus.CONFLICT : HttpStatus.OK;
+        return ResponseEntity.status(status).body(result);
+    }
+
+    @PostMapping("/reserveRoom/async")//met la demande en file et renvoie immédiatement un ticket
+    public ResponseEntity<?> reserveRoomAsync(@RequestBody ReservationRequestService reservationRequestService,
+                                              @RequestParam(required = false) String callbackUrl) {
+        Room room = reservationRequestService.getRoom();
+        Meeting meeting = reservationRequestService.getMeeting();
+        if (isIncomplete(room, meeting)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("La salle, la date, les heures et le type de réunion sont obligatoires !");
+        }
+        try {
+            return reservationQueue.submit(room, meeting, callbackUrl)
+                    .<ResponseEntity<?>>map(ticket -> ResponseEntity.status(HttpStatus.ACCEPTED).body(ticket))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header("Retry-After", "1")
+                            .body("Trop de demandes en attente, veuillez réessayer."));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/reserveRoom/async/{ticket}")//état d'une demande asynchrone
+    public ResponseEntity<?> reservationStatus(@PathVariable long ticket) {
+        return reservationQueue.status(ticket)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("Ticket inconnu ou expiré : " + ticket));
+    }
+
+    @PostMapping("/findRoom")//trouve automatiquement la salle la mieux adaptée à une réunion
+    public ResponseEntity<?> findRoom(@RequestBody Meeting meeting) {
+        try {
+            if (meeting == null || meeting.getMeetingType() == null) {
+                throw new MissingArgument("La réunion et son type sont obligatoires !");
+            }
+            int failedRules = reservationService.checkMeeting(meeting);
+            if (failedRules != ReservationRules.ACCEPTED) {
+                // le weekend ou hors des heures de travail
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(RejectionReason.first(failedRules).getMessage());
             }
+            return reservationService.findBestRoom(meeting)
+                    .flatMap(roomCatalogCache::room)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseThrow(() -> new NotFoundObject("Aucune salle disponible ne correspond à cette réunion."));
+        } catch (MissingArgument e) {
+            // réunion incomplète
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (NotFoundObject e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
     }
 
-    @GetMapping("/reservations")
-    public ResponseEntity<?> displayReservations() {
-        List<Room> reservations = repoRoom.findAllByAvailability(false);
+    @GetMapping("/freeSlots")//plages libres d'une journée dans les salles adaptées, classées et paginées
+    public ResponseEntity<?> freeSlots(@RequestParam LocalDate date,
+                                       @RequestParam int duration,
+                                       @RequestParam int people,
+                                       @RequestParam MeetingType type,
+                                       @RequestParam(defaultValue = "0") int page,
+                                       @RequestParam(defaultValue = "" + FreeSlotSearch.DEFAULT_PAGE_SIZE) int size,
+                                       @RequestParam(required = false) String after) {
+        if (duration <= 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("La durée doit être positive (en minutes).");
+        }
+        int failedRules = freeSlotSearch.check(date, duration);
+        if (failedRules != ReservationRules.ACCEPTED) {
+            // le weekend ou une durée plus longue que la journée de travail
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(RejectionReason.first(failedRules).getMessage());
+        }
+        try {
+            return ResponseEntity.ok(freeSlotSearch.search(date, duration, people, type, page, size, after));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/scheduleAll")//attribue une salle à toutes les demandes de réunion en attente
+    public ResponseEntity<?> scheduleAll() {
+        try {
+            return ResponseEntity.ok(batchSchedulerService.scheduleAll());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Une erreur s'est produite : " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/reservations")//historique des réservations, ou celles d'une journée si date est fournie
+    public ResponseEntity<?> displayReservations(@RequestParam(required = false) LocalDate date,
+                                                 @RequestParam(required = false) Integer after,
+                                                 @RequestParam(required = false) Integer limit) {
+        if (after != null || limit != null) {
+            return ResponseEntity.ok(keysetListing.page(after, limit, repoReservation::findByIdGreaterThanOrderByIdAsc, Reservation::getId));
+        }
+        List<Reservation> reservations = date != null
+                ? repoReservation.findByReservationDateOrderByRoomIdAscStartTimeAsc(date)
+                : repoReservation.findAll();
         if (reservations.isEmpty()) {
             throw new NotFoundObject("Aucune réservation n'a été trouvée.");
         }
         return ResponseEntity.ok(reservations);
     }
 
+    @GetMapping("/reservations/room/{id}")//réservations d'une salle entre deux dates incluses
+    public ResponseEntity<List<Reservation>> displayRoomReservations(@PathVariable Integer id,
+                                                                     @RequestParam LocalDate from,
+                                                                     @RequestParam LocalDate to) {
+        return ResponseEntity.ok(repoReservation
+                .findByRoomIdAndReservationDateBetweenOrderByReservationDateAscStartTimeAsc(id, from, to));
+    }
+
+    @GetMapping(value = "/reservations/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamReservations() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(keysetListing.stream(repoReservation::findByIdGreaterThanOrderByIdAsc, Reservation::getId));
+    }
+
+    @GetMapping("/utilisation")//utilisation des salles par jour, salle, tranche de capacité ou type de réunion
+    public ResponseEntity<?> utilisation(@RequestParam LocalDate from,
+                                         @RequestParam(required = false) LocalDate to,
+                                         @RequestParam(defaultValue = "DAY") UtilisationReport.GroupBy groupBy) {
+        LocalDate end = to == null ? from : to;
+        if (end.isBefore(from)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("La date de fin doit suivre la date de début.");
+        }
+        if (ChronoUnit.DAYS.between(from, end) >= RoomUtilisation.MAX_REPORT_DAYS) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Un rapport ne peut pas dépasser " + RoomUtilisation.MAX_REPORT_DAYS + " jours.");
+        }
+        // lu dans les agrégats en mémoire : aucune requête sur les tables de réservation
+        return ResponseEntity.ok(roomUtilisation.report(from, end, groupBy));
+    }
+
+    @GetMapping(value = "/rooms/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)//changements des salles au fil de l'eau (SSE)
+    public SseEmitter roomChanges(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return roomChangeFeed.subscribe(lastEventId);
+    }
+
+    @GetMapping("/cache/stats")//taux de succès et taille du cache des salles
+    public ResponseEntity<RoomCatalogCache.CacheStats> cacheStats() {
+        return ResponseEntity.ok(roomCatalogCache.stats());
+    }
+
+    // mode cluster : salle gardée par une autre instance au-delà de planner.cluster.claim-wait, à redemander
+    private static ResponseEntity<?> busy(CannotAcquireLockException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").body(e.getMessage());
+    }
+
+    // une demande de réservation doit désigner la salle et donner la date, les heures et le type de la réunion
+    private static boolean isIncomplete(Room room, Meeting meeting) {
+        return room == null || room.getId() == null || meeting == null || meeting.getMeetingDate() == null
+                || meeting.getStartTime() == null || meeting.getEndTime() == null || meeting.getMeetingType() == null;
+    }
+
 }
@@ -1,7 +0,0 @@
-package com.planning.demomeetingplanner.Exception;
-
-public class EquipmentNotFound extends RuntimeException {
-    public EquipmentNotFound(String message) {
-        super(message);
-    }
-}
@@ -0,0 +1,487 @@
+package com.planning.demomeetingplanner.Journal;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.transaction.Synchronization;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+//journal local en ajout seul du mode memory : les écritures d'une transaction y sont ajoutées et forcées sur disque
+//juste avant son commit en base, un échec du journal annule donc la transaction ; les fsync sont groupés
+//(group commit), un instantané périodique permet d'effacer les anciens segments
+//au démarrage, l'instantané puis les segments suivants sont rejoués dans la base en mémoire
+//une écriture en échec ouvre un nouveau segment et y réécrit le lot : seul un second échec est renvoyé aux appelants du lot
+@Component
+public class Journal {
+
+    private static final Logger log = LoggerFactory.getLogger(Journal.class);
+    private static final String SNAPSHOT = "snapshot.ndjson";
+    private static final Pattern SEGMENT = Pattern.compile("journal-(\\d+)\\.log");
+    private static final Pattern COLUMN = Pattern.compile("[a-z_]+");
+    // ordre des tables : celui des clés étrangères, pour l'instantané comme pour le rejeu
+    private static final List<String> TABLES = List.of("room", "equipment", "meeting", "reservation");
+
+    private final boolean enabled;
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    // ajouts en attente d'écriture : chaque appelant attend que le sien soit sur disque, ou en échec
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pendingChanged = lock.newCondition();
+    private final Condition durableChanged = lock.newCondition();
+    private List<Append> pending = new ArrayList<>();
+    private boolean running;
+
+    // protège le segment courant entre le thread d'écriture et la rotation de l'instantané
+    private final ReentrantLock segmentLock = new ReentrantLock();
+    private FileChannel channel;
+    private long segment;
+    private Thread writer;
+
+    @Autowired
+    public Journal(@Value("${planner.journal.enabled:false}") boolean enabled,
+                   @Value("${planner.journal.directory:data/journal}") Path directory,
+                   ObjectMapper objectMapper, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                   ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Ligne insérée ou modifiée
+    public void saved(JournalRows.Row row) {
+        if (enabled) {
+            record(Map.of("op", "save", "table", row.table(), "row", row.columns()));
+        }
+    }
+
+    // Ligne supprimée
+    public void deleted(String table, Object id) {
+        if (enabled) {
+            record(Map.of("op", "delete", "table", table, "id", id));
+        }
+    }
+
+    //rejoue l'instantané et les segments, puis ouvre un nouveau segment ; une seule fois, base JPA prête
+    @EventListener(ContextRefreshedEvent.class)
+    public synchronized void open() throws IOException {
+        if (!enabled || running) {
+            return;
+        }
+        Files.createDirectories(directory);
+        long replayed = replay();
+        segment = Math.max(replayed, lastSegment()) + 1;
+        channel = openSegment(segment);
+        running = true;
+        writer = new Thread(this::writeLoop, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws Exception {
+        if (!running) {
+            return;
+        }
+        lock.lock();
+        try {
+            running = false;
+            pendingChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        writer.join(5_000);
+        segmentLock.lock();
+        try {
+            channel.close();
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    //instantané de toutes les tables puis suppression des segments qu'il couvre
+    @Scheduled(fixedDelayString = "${planner.journal.snapshot-interval:300000}",
+            initialDelayString = "${planner.journal.snapshot-interval:300000}")
+    public synchronized void snapshot() throws IOException {
+        if (!running) {
+            return;
+        }
+        // tout ce qui est validé avant la rotation est dans les anciens segments, donc visible par l'instantané ;
+        // ce qui arrive ensuite va dans le nouveau segment et sera rejoué après lui (le rejeu est idempotent)
+        long first;
+        segmentLock.lock();
+        try {
+            channel.force(false);
+            channel.close();
+            first = ++segment;
+            channel = openSegment(first);
+        } finally {
+            segmentLock.unlock();
+        }
+
+        Path temporary = directory.resolve(SNAPSHOT + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(out, line(Map.of("segment", first)));
+            for (String table : TABLES) {
+                for (Map<String, Object> row : jdbcTemplate.queryForList("select * from " + table)) {
+                    Map<String, Object> columns = new LinkedHashMap<>();
+                    row.forEach((column, value) -> columns.put(column.toLowerCase(), JournalRows.column(value)));
+                    write(out, line(Map.of("op", "save", "table", table, "row", columns)));
+                }
+            }
+            out.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (Path old : segments()) {
+            if (segmentNumber(old) < first) {
+                Files.deleteIfExists(old);
+            }
+        }
+    }
+
+    //dans une transaction, les lignes sont regroupées et écrites juste avant le commit en base ; sinon immédiatement
+    //une erreur du journal fait échouer le commit, qui est annulé : la base ne garde rien qui ne soit pas journalisé
+    //(à l'inverse, un commit JDBC qui échouerait après l'écriture du journal laisserait ses lignes au rejeu)
+    private void record(Map<String, Object> event) {
+        byte[] line = line(event);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(List.of(line));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<byte[]> buffer = (List<byte[]>) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            List<byte[]> created = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            Session session = currentSession();
+            if (session != null) {
+                // transaction JPA : Hibernate vide la session et incrémente les versions forcées au début de son
+                // commit, les lignes sont donc complètes quand ses synchronisations sont appelées, avant le commit JDBC
+                session.getTransaction().registerSynchronization(new Synchronization() {
+                    @Override
+                    public void beforeCompletion() {
+                        append(created);
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                    }
+                });
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    if (session == null) {
+                        append(created);
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(Journal.this);
+                }
+            });
+            buffer = created;
+        }
+        buffer.add(line);
+    }
+
+    // session Hibernate de la transaction en cours, null hors transaction JPA
+    private Session currentSession() {
+        EntityManagerFactory factory = entityManagerFactory.getIfAvailable();
+        if (factory == null) {
+            return null;
+        }
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(factory);
+        return holder == null ? null : holder.getEntityManager().unwrap(Session.class);
+    }
+
+    // Ajoute les lignes et attend qu'un fsync les couvre ; plusieurs appelants partagent le même fsync
+    private void append(List<byte[]> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        Append request = new Append(lines);
+        lock.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Le journal n'est pas ouvert.");
+            }
+            pending.add(request);
+            pendingChanged.signal();
+            while (!request.written && request.error == null) {
+                durableChanged.awaitUninterruptibly();
+            }
+            if (request.error != null) {
+                throw new UncheckedIOException("Écriture du journal impossible", request.error);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            List<Append> batch;
+            lock.lock();
+            try {
+                while (pending.isEmpty() && running) {
+                    pendingChanged.awaitUninterruptibly();
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                // tout ce qui est arrivé pendant le fsync précédent part dans ce lot
+                batch = pending;
+                pending = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+            IOException error = writeBatch(batch);
+            lock.lock();
+            try {
+                for (Append request : batch) {
+                    request.written = error == null;
+                    request.error = error;
+                }
+                durableChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Un seul write et un seul fsync pour tout le lot ; renvoie l'erreur si le lot n'a pas pu être écrit
+    private IOException writeBatch(List<Append> batch) {
+        int size = 0;
+        for (Append request : batch) {
+            for (byte[] line : request.lines) {
+                size += line.length;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (Append request : batch) {
+            for (byte[] line : request.lines) {
+                buffer.put(line);
+            }
+        }
+        byte[] bytes = buffer.array();
+        segmentLock.lock();
+        try {
+            try {
+                write(channel, bytes);
+                channel.force(false);
+                return null;
+            } catch (IOException e) {
+                // le segment courant peut finir par une ligne tronquée, que le rejeu ignore : le lot repart
+                // en entier dans un nouveau segment (le rejeu est idempotent si une partie était déjà écrite)
+                try {
+                    rollSegment();
+                    write(channel, bytes);
+                    channel.force(false);
+                    log.warn("Écriture du journal impossible ({}), reprise dans le segment {}", e.getMessage(), segment);
+                    return null;
+                } catch (IOException retry) {
+                    retry.addSuppressed(e);
+                    log.error("Écriture du journal impossible, {} ajout(s) refusé(s)", batch.size(), retry);
+                    return retry;
+                }
+            }
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    // Ferme le segment courant, même abîmé, et ouvre le suivant ; à appeler sous segmentLock
+    private void rollSegment() throws IOException {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Fermeture du segment {} impossible : {}", segment, e.getMessage());
+        }
+        channel = openSegment(++segment);
+    }
+
+    // Rejoue l'instantané puis les segments qui le suivent ; renvoie le dernier segment couvert
+    private long replay() throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT);
+        long first = 0;
+        List<Map<String, Object>> events = new ArrayList<>();
+        if (Files.exists(snapshot)) {
+            try (BufferedReader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+                first = ((Number) read(reader.readLine()).get("segment")).longValue();
+                readAll(reader, events);
+            }
+        }
+        long last = first;
+        for (Path path : segments()) {
+            long number = segmentNumber(path);
+            if (number >= first) {
+                try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    readAll(reader, events);
+                }
+                last = Math.max(last, number);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Map<String, Object> event : events) {
+                apply(event);
+            }
+            // les prochains ids générés reprennent après les ids rejoués
+            for (String table : TABLES) {
+                Long next = jdbcTemplate.queryForObject("select coalesce(max(id), 0) + 1 from " + table, Long.class);
+                jdbcTemplate.execute("alter table " + table + " alter column id restart with " + next);
+            }
+        });
+        log.info("Journal rejoué : {} opération(s) depuis {}", events.size(), directory);
+        return last;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void apply(Map<String, Object> event) {
+        String table = (String) event.get("table");
+        if (!TABLES.contains(table)) {
+            throw new IllegalStateException("Table inconnue dans le journal : " + table);
+        }
+        if ("delete".equals(event.get("op"))) {
+            jdbcTemplate.update("delete from " + table + " where id = ?", event.get("id"));
+            return;
+        }
+        Map<String, Object> row = (Map<String, Object>) event.get("row");
+        if (row.containsKey("version")) {
+            // deux commits de la même salle peuvent arriver dans le désordre : on garde la version la plus récente
+            List<Long> stored = jdbcTemplate.queryForList("select version from " + table + " where id = ?",
+                    Long.class, row.get("id"));
+            if (!stored.isEmpty() && stored.get(0) > ((Number) row.get("version")).longValue()) {
+                return;
+            }
+        }
+        StringJoiner columns = new StringJoiner(", ");
+        StringJoiner values = new StringJoiner(", ");
+        for (String column : row.keySet()) {
+            if (!COLUMN.matcher(column).matches()) {
+                throw new IllegalStateException("Colonne invalide dans le journal : " + column);
+            }
+            columns.add(column);
+            values.add("?");
+        }
+        jdbcTemplate.update("merge into " + table + " (" + columns + ") key (id) values (" + values + ")",
+                row.values().toArray());
+    }
+
+    private void readAll(BufferedReader reader, List<Map<String, Object>> events) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                events.add(read(line));
+            } catch (IOException e) {
+                // dernière ligne tronquée par un arrêt brutal : elle n'avait pas été confirmée
+                log.warn("Ligne de journal ignorée : {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private Map<String, Object> read(String line) throws IOException {
+        return objectMapper.readValue(line, new TypeReference<>() {
+        });
+    }
+
+    private byte[] line(Map<String, Object> event) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(event);
+            byte[] line = Arrays.copyOf(json, json.length + 1);
+            line[json.length] = '\n';
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(FileChannel out, byte[] line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(directory.resolve("journal-" + number + ".log"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private long lastSegment() throws IOException {
+        long last = 0;
+        for (Path path : segments()) {
+            last = Math.max(last, segmentNumber(path));
+        }
+        return last;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> SEGMENT.matcher(path.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingLong(Journal::segmentNumber))
+                    .toList();
+        }
+    }
+
+    private static long segmentNumber(Path path) {
+        var matcher = SEGMENT.matcher(path.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    //lignes d'un commit en attente ; written ou error est renseigné par le thread d'écriture, sous lock
+    private static final class Append {
+
+        final List<byte[]> lines;
+        boolean written;
+        IOException error;
+
+        Append(List<byte[]> lines) {
+            this.lines = lines;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.planning.demomeetingplanner.Journal;
+
+import org.hibernate.LockMode;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+//écouteur Hibernate des entités journalisées : seul point d'entrée des écritures JPA dans le journal
+//insertions, mises à jour et suppressions, ainsi que l'incrément de version forcé par OPTIMISTIC_FORCE_INCREMENT,
+//qu'Hibernate applique juste avant le commit sans passer par un événement de mise à jour
+//les écritures JDBC groupées passent par JournaledJdbc ; le journal est résolu au premier événement
+@Component
+public class JournalListener implements HibernatePropertiesCustomizer, Integrator, PostInsertEventListener,
+        PostUpdateEventListener, PostDeleteEventListener, PostLoadEventListener {
+
+    private final ObjectProvider<Journal> journal;
+
+    @Autowired
+    public JournalListener(ObjectProvider<Journal> journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(this));
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        // après l'écouteur par défaut, qui enregistre l'incrément de version : le nôtre passe donc après lui
+        registry.appendListeners(EventType.POST_LOAD, this);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        saved(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        saved(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Journal current = active();
+        if (current != null && JournalRows.isJournaled(event.getEntity())) {
+            JournalRows.Row row = JournalRows.of(event.getEntity());
+            current.deleted(row.table(), row.id());
+        }
+    }
+
+    // Salle lue avec OPTIMISTIC_FORCE_INCREMENT : sa nouvelle version est journalisée une fois incrémentée
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        Object entity = event.getEntity();
+        if (active() == null || !JournalRows.isJournaled(entity)) {
+            return;
+        }
+        EntityEntry entry = event.getSession().getPersistenceContextInternal().getEntry(entity);
+        if (entry == null || entry.getLockMode() != LockMode.OPTIMISTIC_FORCE_INCREMENT) {
+            return;
+        }
+        event.getSession().getActionQueue().registerProcess((BeforeTransactionCompletionProcess) session -> {
+            EntityEntry current = session.getPersistenceContextInternal().getEntry(entity);
+            if (current != null && current.getStatus() == Status.MANAGED) {
+                saved(entity);
+            }
+        });
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void saved(Object entity) {
+        Journal current = active();
+        if (current != null && JournalRows.isJournaled(entity)) {
+            current.saved(JournalRows.of(entity));
+        }
+    }
+
+    private Journal active() {
+        Journal current = journal.getIfAvailable();
+        return current != null && current.isEnabled() ? current : null;
+    }
+}
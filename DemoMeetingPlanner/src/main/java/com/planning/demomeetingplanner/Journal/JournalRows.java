@@ -0,0 +1,100 @@
+package com.planning.demomeetingplanner.Journal;
+
+import com.planning.demomeetingplanner.Model.Equipment;
+import com.planning.demomeetingplanner.Model.Meeting;
+import com.planning.demomeetingplanner.Model.Reservation;
+import com.planning.demomeetingplanner.Model.Room;
+
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//conversion des entités en lignes du journal : nom de table et valeurs par colonne, telles qu'en base
+//les dates et heures sont écrites en texte, les énumérations par leur ordinal (comme le fait JPA)
+public final class JournalRows {
+
+    private JournalRows() {
+    }
+
+    public record Row(String table, Object id, Map<String, Object> columns) {
+    }
+
+    public static boolean isJournaled(Object entity) {
+        return entity instanceof Room || entity instanceof Equipment || entity instanceof Meeting
+                || entity instanceof Reservation;
+    }
+
+    public static Row of(Object entity) {
+        if (entity instanceof Room room) {
+            return room(room);
+        }
+        if (entity instanceof Equipment equipment) {
+            return equipment(equipment);
+        }
+        if (entity instanceof Meeting meeting) {
+            return meeting(meeting);
+        }
+        if (entity instanceof Reservation reservation) {
+            return reservation(reservation);
+        }
+        throw new IllegalArgumentException("Entité non journalisée : " + entity.getClass().getSimpleName());
+    }
+
+    public static Row room(Room room) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("id", room.getId());
+        columns.put("name", room.getName());
+        columns.put("capacity", room.getCapacity());
+        columns.put("open_time", text(room.getOpenTime()));
+        columns.put("close_time", text(room.getCloseTime()));
+        columns.put("availability", room.isAvailability());
+        columns.put("version", room.getVersion());
+        return new Row("room", room.getId(), columns);
+    }
+
+    public static Row equipment(Equipment equipment) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("id", equipment.getId());
+        columns.put("name", equipment.getName());
+        columns.put("description", equipment.getDescription());
+        columns.put("equipment_type", equipment.getEquipmentType() == null ? null : equipment.getEquipmentType().ordinal());
+        columns.put("room_id", equipment.getRoom() == null ? null : equipment.getRoom().getId());
+        return new Row("equipment", equipment.getId(), columns);
+    }
+
+    public static Row meeting(Meeting meeting) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("id", meeting.getId());
+        columns.put("name", meeting.getName());
+        columns.put("start_time", text(meeting.getStartTime()));
+        columns.put("end_time", text(meeting.getEndTime()));
+        columns.put("meeting_date", meeting.getMeetingDate() == null ? null
+                : new Timestamp(meeting.getMeetingDate().getTime()).toString());
+        columns.put("number_ofpeople", meeting.getNumberOfpeople());
+        columns.put("meeting_type", meeting.getMeetingType() == null ? null : meeting.getMeetingType().ordinal());
+        return new Row("meeting", meeting.getId(), columns);
+    }
+
+    public static Row reservation(Reservation reservation) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("id", reservation.getId());
+        columns.put("room_id", reservation.getRoomId());
+        columns.put("reservation_date", text(reservation.getReservationDate()));
+        columns.put("start_time", text(reservation.getStartTime()));
+        columns.put("end_time", text(reservation.getEndTime()));
+        columns.put("meeting_name", reservation.getMeetingName());
+        columns.put("number_ofpeople", reservation.getNumberOfpeople());
+        columns.put("meeting_type", reservation.getMeetingType() == null ? null : reservation.getMeetingType().ordinal());
+        columns.put("booked_at", text(reservation.getBookedAt()));
+        return new Row("reservation", reservation.getId(), columns);
+    }
+
+    // Valeur lue en base (instantané) : les types temporels JDBC sont écrits en texte
+    static Object column(Object value) {
+        return value instanceof java.util.Date || value instanceof java.time.temporal.Temporal ? value.toString() : value;
+    }
+
+    private static String text(Object value) {
+        return value == null ? null : value.toString();
+    }
+}
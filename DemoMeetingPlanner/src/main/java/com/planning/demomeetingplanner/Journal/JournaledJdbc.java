@@ -0,0 +1,81 @@
+package com.planning.demomeetingplanner.Journal;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.BiConsumer;
+
+//seul point des écritures JDBC groupées (hors JPA) : insertion par lot avec récupération des ids, suppression par ids
+//chaque ligne écrite est transmise au journal du mode memory, qui l'écrit au commit de la transaction
+@Component
+public class JournaledJdbc {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Journal journal;
+
+    @Autowired
+    public JournaledJdbc(JdbcTemplate jdbcTemplate, Journal journal) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.journal = journal;
+    }
+
+    // Insère les entités en une seule instruction groupée, renseigne leur id et les journalise
+    // renvoie le nombre de lignes insérées selon la base
+    public <T> int insertAll(String sql, List<T> entities, ParameterizedPreparedStatementSetter<T> setter,
+                             BiConsumer<T, Integer> setId) {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        int[] counts = jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        setter.setValues(statement, entities.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return entities.size();
+                    }
+                }, keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < entities.size() && i < generated.size(); i++) {
+            T entity = entities.get(i);
+            setId.accept(entity, ((Number) generated.get(i).values().iterator().next()).intValue());
+            if (journal.isEnabled()) {
+                journal.saved(JournalRows.of(entity));
+            }
+        }
+        int inserted = 0;
+        for (int count : counts) {
+            // certains pilotes ne donnent pas le nombre de lignes d'une instruction groupée réussie
+            inserted += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return inserted;
+    }
+
+    // Supprime les lignes de la table par id, sans charger les entités ; renvoie le nombre de lignes supprimées
+    public int deleteAll(String table, Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        StringJoiner placeholders = new StringJoiner(", ");
+        ids.forEach(id -> placeholders.add("?"));
+        int deleted = jdbcTemplate.update("delete from " + table + " where id in (" + placeholders + ")", ids.toArray());
+        ids.forEach(id -> journal.deleted(table, id));
+        return deleted;
+    }
+}
@@ -0,0 +1,24 @@
+package com.planning.demomeetingplanner.Model;
+
+import java.util.List;
+
+//résultat de /api/reserveRooms : une ligne par demande, dans l'ordre de la requête
+public record BatchReservationResult(Mode mode, int accepted, List<Item> items) {
+
+    public enum Mode {
+        // tout ou rien : un seul refus annule tout le lot
+        ALL_OR_NOTHING,
+        // chaque demande acceptable est enregistrée, les autres sont refusées
+        BEST_EFFORT
+    }
+
+    public enum State {
+        ACCEPTED,
+        REJECTED,
+        // acceptable, mais pas enregistrée car une autre demande du lot a été refusée (tout ou rien)
+        CANCELLED
+    }
+
+    public record Item(int index, Integer roomId, State state, List<Rejection> rejections) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.planning.demomeetingplanner.Model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -14,7 +15,11 @@ public class Equipment {
     private String description;
     private EquipmentType equipmentType;
 
+    //pas de retour vers la salle dans le JSON, ni dans equals/hashCode/toString : évite le cycle Room <-> Equipment
     @ManyToOne
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Room room;
 
 }
@@ -5,5 +5,10 @@ public enum EquipmentType {
     ECRAN,
     TABLEAU,
     WEBCAM,
-    PIEUVRE
+    PIEUVRE;
+
+    //bit représentant cet équipement dans un masque de capacités
+    public int mask() {
+        return 1 << ordinal();
+    }
 }
@@ -0,0 +1,10 @@
+package com.planning.demomeetingplanner.Model;
+
+//vue en lecture seule d'un équipement, sans lien retour vers sa salle
+public record EquipmentView(Integer id, String name, String description, EquipmentType equipmentType) {
+
+    public static EquipmentView of(Equipment equipment) {
+        return new EquipmentView(equipment.getId(), equipment.getName(), equipment.getDescription(),
+                equipment.getEquipmentType());
+    }
+}
@@ -0,0 +1,7 @@
+package com.planning.demomeetingplanner.Model;
+
+import java.time.LocalTime;
+
+//plage libre d'une salle : la réunion peut commencer à n'importe quelle heure entre from et latestStart
+public record FreeSlot(Integer roomId, int capacity, LocalTime from, LocalTime to, LocalTime latestStart) {
+}
@@ -0,0 +1,8 @@
+package com.planning.demomeetingplanner.Model;
+
+import java.util.List;
+
+//page d'une recherche de plages libres ; total est le nombre de plages trouvées toutes pages confondues
+//nextCursor est à renvoyer dans le paramètre "after" pour la page suivante (null sur la dernière page)
+public record FreeSlotPage(List<FreeSlot> items, int page, int size, int total, String nextCursor) {
+}
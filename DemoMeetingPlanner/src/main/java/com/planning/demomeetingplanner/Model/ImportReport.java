@@ -0,0 +1,11 @@
+package com.planning.demomeetingplanner.Model;
+
+import java.util.List;
+
+//bilan d'un import en masse : nombre de lignes enregistrées et lignes rejetées avec leur motif
+public record ImportReport(int imported, List<RowError> errors) {
+
+    //ligne rejetée : numéro de ligne (CSV, NDJSON) ou position dans le tableau JSON, à partir de 1
+    public record RowError(long row, String message) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.planning.demomeetingplanner.Model;
+
+import java.util.List;
+
+//page d'une liste parcourue par id croissant ; nextCursor est à renvoyer dans le paramètre "after"
+public record KeysetPage<T>(List<T> items, Integer nextCursor) {
+}
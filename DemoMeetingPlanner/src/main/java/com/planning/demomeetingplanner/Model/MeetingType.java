@@ -1,8 +1,38 @@
 package com.planning.demomeetingplanner.Model;
 
+import java.util.List;
+
 public enum MeetingType {
-    VC,
-    RS,
-    RC,
-    SPEC
+    VC(EquipmentType.ECRAN, EquipmentType.PIEUVRE, EquipmentType.WEBCAM),
+    // Pour les réunions simples, aucun équipement spécifique requis donc Néant
+    RS(EquipmentType.NEANT),
+    RC(EquipmentType.TABLEAU, EquipmentType.ECRAN, EquipmentType.PIEUVRE),
+    SPEC(EquipmentType.TABLEAU);
+
+    private final List<EquipmentType> requiredEquipments;
+    private final int requiredMask;
+
+    MeetingType(EquipmentType... requiredEquipments) {
+        this.requiredEquipments = List.of(requiredEquipments);
+        int mask = 0;
+        for (EquipmentType equipmentType : requiredEquipments) {
+            mask |= equipmentType.mask();
+        }
+        this.requiredMask = mask;
+    }
+
+    //équipements nécessaires pour ce type de réunion
+    public List<EquipmentType> getRequiredEquipments() {
+        return requiredEquipments;
+    }
+
+    //masque des équipements nécessaires, à comparer au masque de capacités d'une salle
+    public int getRequiredMask() {
+        return requiredMask;
+    }
+
+    //vérifie si une salle ayant ces capacités peut accueillir ce type de réunion
+    public boolean isSatisfiedBy(int capabilities) {
+        return (capabilities & requiredMask) == requiredMask;
+    }
 }
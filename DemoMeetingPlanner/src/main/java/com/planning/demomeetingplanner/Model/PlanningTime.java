@@ -0,0 +1,69 @@
+package com.planning.demomeetingplanner.Model;
+
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Date;
+import java.util.TimeZone;
+
+//représentation compacte du temps pour les règles de réservation :
+//un jour est un nombre de jours depuis le 01/01/1970, une heure un nombre de minutes depuis minuit
+public final class PlanningTime {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    // heures de travail : de 8h à 20h
+    public static final int OPENING_MINUTE = 8 * 60;
+    public static final int CLOSING_MINUTE = 20 * 60;
+
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final long MILLIS_PER_DAY = MINUTES_PER_DAY * MILLIS_PER_MINUTE;
+
+    // fuseau de la JVM, lu une seule fois : Time et Date sont interprétés en heure locale comme le faisait Calendar
+    private static final TimeZone ZONE = TimeZone.getDefault();
+
+    private PlanningTime() {
+    }
+
+    // Minutes depuis minuit d'une heure SQL, sans créer de Calendar
+    public static int minuteOfDay(Time time) {
+        long millis = time.getTime();
+        return (int) (Math.floorMod(millis + ZONE.getOffset(millis), MILLIS_PER_DAY) / MILLIS_PER_MINUTE);
+    }
+
+    public static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    // Jour epoch d'une date (java.util.Date ou java.sql.Date), sans créer de Calendar
+    public static long epochDay(Date date) {
+        long millis = date.getTime();
+        return Math.floorDiv(millis + ZONE.getOffset(millis), MILLIS_PER_DAY);
+    }
+
+    public static long epochDay(LocalDate date) {
+        return date.toEpochDay();
+    }
+
+    // Le 01/01/1970 était un jeudi : 0 = lundi ... 6 = dimanche
+    public static boolean isWeekend(long epochDay) {
+        return Math.floorMod(epochDay + 3, 7) >= 5;
+    }
+
+    // Vérifie si le créneau est non vide et compris entre 8h et 20h
+    public static boolean isWithinWorkingHours(int startMinute, int endMinute) {
+        return startMinute >= OPENING_MINUTE && endMinute <= CLOSING_MINUTE && startMinute < endMinute;
+    }
+
+    // Conversions vers java.time pour les réponses de l'API
+    public static LocalDate toLocalDate(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    public static LocalTime toLocalTime(int minuteOfDay) {
+        return LocalTime.of(minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    public static Time toTime(int minuteOfDay) {
+        return Time.valueOf(toLocalTime(minuteOfDay));
+    }
+}
@@ -0,0 +1,16 @@
+package com.planning.demomeetingplanner.Model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//règle en échec renvoyée par le mode explication de /api/reserveRoom
+public record Rejection(RejectionReason reason, String message) {
+
+    public static List<Rejection> of(int failedRules) {
+        List<Rejection> rejections = new ArrayList<>();
+        for (RejectionReason reason : RejectionReason.all(failedRules)) {
+            rejections.add(new Rejection(reason, reason.getMessage()));
+        }
+        return rejections;
+    }
+}
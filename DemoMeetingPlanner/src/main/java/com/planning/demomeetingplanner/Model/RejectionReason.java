@@ -0,0 +1,52 @@
+package com.planning.demomeetingplanner.Model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//motif du refus d'une réservation : un bit par règle, et le tag des métriques
+public enum RejectionReason {
+    WEEKEND("La date est un week-end. Nous ne reservons les weekends!"),
+    OUTSIDE_HOURS("L'heure de réservation doit être entre 8h et 20h."),
+    UNKNOWN_ROOM("Cette salle est introuvable dans notre liste de salles disponible"),
+    MISSING_EQUIPMENT("La salle ne possède pas tous les équipements requis pour ce type de réunion."),
+    ROOM_CLOSED("La salle est fermée sur une partie de ce créneau horaire."),
+    SLOT_CONFLICT("La salle n'est pas disponible pour ce créneau horaire.");
+
+    private static final RejectionReason[] VALUES = values();
+
+    private final String message;
+    private final int mask;
+
+    RejectionReason(String message) {
+        this.message = message;
+        this.mask = 1 << ordinal();
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public int mask() {
+        return mask;
+    }
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+
+    // Premier motif d'un ensemble de règles en échec (ensemble non vide)
+    public static RejectionReason first(int failedRules) {
+        return VALUES[Integer.numberOfTrailingZeros(failedRules)];
+    }
+
+    // Tous les motifs d'un ensemble de règles en échec, dans l'ordre d'évaluation
+    public static List<RejectionReason> all(int failedRules) {
+        List<RejectionReason> reasons = new ArrayList<>(Integer.bitCount(failedRules));
+        for (RejectionReason reason : VALUES) {
+            if ((failedRules & reason.mask) != 0) {
+                reasons.add(reason);
+            }
+        }
+        return reasons;
+    }
+}
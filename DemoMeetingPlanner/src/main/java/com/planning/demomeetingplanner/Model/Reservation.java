@@ -0,0 +1,48 @@
+package com.planning.demomeetingplanner.Model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+//réservation enregistrée : le créneau d'une salle et les données de la réunion qui l'occupe
+//la salle est référencée par son id seulement, pour garder l'historique même après sa suppression
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_reservation_room_date_start", columnList = "room_id, reservation_date, start_time"),
+        @Index(name = "idx_reservation_date", columnList = "reservation_date")
+})
+@Data @NoArgsConstructor @AllArgsConstructor @Getter @Setter
+public class Reservation {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    @Column(name = "room_id", nullable = false)
+    private Integer roomId;
+    @Column(name = "reservation_date", nullable = false)
+    private LocalDate reservationDate;
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+    @Column(name = "end_time", nullable = false)
+    private LocalTime endTime;
+    private String meetingName;
+    private int numberOfpeople;
+    private MeetingType meetingType;
+    private LocalDateTime bookedAt;
+
+    // Réservation d'une salle pour une demande de réunion, aux horaires déjà convertis
+    public static Reservation of(Integer roomId, Meeting meeting, long day, int start, int end) {
+        Reservation reservation = new Reservation();
+        reservation.setRoomId(roomId);
+        reservation.setReservationDate(PlanningTime.toLocalDate(day));
+        reservation.setStartTime(PlanningTime.toLocalTime(start));
+        reservation.setEndTime(PlanningTime.toLocalTime(end));
+        reservation.setMeetingName(meeting.getName());
+        reservation.setNumberOfpeople(meeting.getNumberOfpeople());
+        reservation.setMeetingType(meeting.getMeetingType());
+        reservation.setBookedAt(LocalDateTime.now());
+        return reservation;
+    }
+}
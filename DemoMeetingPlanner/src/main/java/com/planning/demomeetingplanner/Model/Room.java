@@ -18,7 +18,11 @@ public class Room {
     private Time closeTime;
     private Time openTime;
     private boolean availability;
+    @Version
+    private long version;
 
     @OneToMany(mappedBy = "room")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<Equipment> equipment=new ArrayList<>();
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.planning.demomeetingplanner.Model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+//changement d'une salle publié sur /api/rooms/changes ; sequence sert d'id d'événement (en-tête Last-Event-ID)
+//date/start/end pour une réservation, room pour une salle ajoutée ou modifiée, les champs inutiles sont omis
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RoomChange(long sequence, Kind kind, Integer roomId, LocalDate date, LocalTime start, LocalTime end,
+                         RoomView room) {
+
+    public enum Kind {
+        ADDED,
+        UPDATED,
+        DELETED,
+        RESERVED,
+        // la salle redevient disponible, sa dernière réservation est terminée
+        RELEASED
+    }
+}
@@ -0,0 +1,5 @@
+package com.planning.demomeetingplanner.Model;
+
+//id et version d'une salle : la version change à chaque modification et à chaque réservation de la salle
+public record RoomVersion(Integer id, long version) {
+}
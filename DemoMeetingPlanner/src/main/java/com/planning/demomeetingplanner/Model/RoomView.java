@@ -0,0 +1,20 @@
+package com.planning.demomeetingplanner.Model;
+
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.List;
+
+//vue en lecture seule d'une salle et de ses équipements, renvoyée par les listes et la recherche de salle
+public record RoomView(Integer id, String name, int capacity, Time openTime, Time closeTime, boolean availability,
+                       List<EquipmentView> equipment) {
+
+    // la collection equipment doit déjà être chargée (entity graph) pour éviter une requête par salle
+    public static RoomView of(Room room) {
+        List<EquipmentView> equipment = new ArrayList<>(room.getEquipment().size());
+        for (Equipment e : room.getEquipment()) {
+            equipment.add(EquipmentView.of(e));
+        }
+        return new RoomView(room.getId(), room.getName(), room.getCapacity(), room.getOpenTime(),
+                room.getCloseTime(), room.isAvailability(), List.copyOf(equipment));
+    }
+}
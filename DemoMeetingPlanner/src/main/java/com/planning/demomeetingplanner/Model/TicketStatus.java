@@ -0,0 +1,14 @@
+package com.planning.demomeetingplanner.Model;
+
+import java.util.List;
+
+//état d'une demande de réservation asynchrone, renvoyé au client et à son url de rappel
+public record TicketStatus(long ticket, State state, Integer roomId, List<Rejection> rejections) {
+
+    public enum State {
+        PENDING,
+        ACCEPTED,
+        REJECTED,
+        FAILED
+    }
+}
@@ -0,0 +1,18 @@
+package com.planning.demomeetingplanner.Model;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+//utilisation des salles entre deux dates incluses, une ligne par groupe ; les refus par motif couvrent toute la période
+public record UtilisationReport(LocalDate from, LocalDate to, GroupBy groupBy, List<UtilisationRow> rows,
+                                Map<String, Long> rejectionsByReason) {
+
+    public enum GroupBy {
+        DAY,
+        ROOM,
+        // tranche de capacité de la salle (voir RoomUtilisation.BANDS)
+        BAND,
+        TYPE
+    }
+}
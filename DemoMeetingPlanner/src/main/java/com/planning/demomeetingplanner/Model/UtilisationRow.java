@@ -0,0 +1,7 @@
+package com.planning.demomeetingplanner.Model;
+
+//une ligne du rapport d'utilisation : minutes réservées sur les minutes d'ouverture des salles du groupe,
+//participants sur les places des salles réservées, et demandes refusées
+public record UtilisationRow(String group, long bookings, long bookedMinutes, long availableMinutes, double utilisation,
+                             long people, long seats, double occupancy, long rejections) {
+}
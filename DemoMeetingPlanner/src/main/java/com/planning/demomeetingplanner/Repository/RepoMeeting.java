@@ -1,9 +1,29 @@
 package com.planning.demomeetingplanner.Repository;
 
 import com.planning.demomeetingplanner.Model.Meeting;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.LockOptions;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface RepoMeeting extends JpaRepository<Meeting,Integer> {
+
+    //pagination par id croissant (keyset)
+    List<Meeting> findByIdGreaterThanOrderByIdAsc(Integer after, Limit limit);
+
+    //mode cluster : ids des demandes que cette instance a pu verrouiller (for update skip locked)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "" + LockOptions.SKIP_LOCKED))
+    @Query("select m from Meeting m where m.id in :ids order by m.id")
+    List<Meeting> claimAllByIdIn(@Param("ids") Collection<Integer> ids);
 }
@@ -0,0 +1,44 @@
+package com.planning.demomeetingplanner.Repository;
+
+import com.planning.demomeetingplanner.Model.Reservation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@Repository
+public interface RepoReservation extends JpaRepository<Reservation,Integer> {
+
+    //réservations d'une salle entre deux dates incluses (index room_id, reservation_date, start_time)
+    List<Reservation> findByRoomIdAndReservationDateBetweenOrderByReservationDateAscStartTimeAsc(
+            Integer roomId, LocalDate from, LocalDate to);
+
+    //toutes les réservations d'une journée (index reservation_date)
+    List<Reservation> findByReservationDateOrderByRoomIdAscStartTimeAsc(LocalDate date);
+
+    //réservations à venir, pour recharger l'index des créneaux au démarrage
+    List<Reservation> findByReservationDateGreaterThanEqual(LocalDate from);
+
+    //pagination par id croissant (keyset)
+    List<Reservation> findByIdGreaterThanOrderByIdAsc(Integer after, Limit limit);
+
+    //réservations à venir enregistrées après une id donnée, par id croissant (relecture du mode cluster)
+    List<Reservation> findByIdGreaterThanAndReservationDateGreaterThanEqualOrderByIdAsc(Integer after, LocalDate from,
+                                                                                       Limit limit);
+
+    //la salle a-t-elle une réservation qui n'est pas terminée à cette date et cette heure ?
+    @Query("select count(r) > 0 from Reservation r where r.roomId = :roomId and (r.reservationDate > :date"
+            + " or (r.reservationDate = :date and r.endTime > :time))")
+    boolean existsNotEndedAt(@Param("roomId") Integer roomId, @Param("date") LocalDate date, @Param("time") LocalTime time);
+
+    //une réservation de la salle ce jour-là chevauche-t-elle ]start, end[ ? les bornes incluent déjà le tampon
+    @Query("select count(r) > 0 from Reservation r where r.roomId = :roomId and r.reservationDate = :date"
+            + " and r.startTime < :end and r.endTime > :start")
+    boolean existsOverlap(@Param("roomId") Integer roomId, @Param("date") LocalDate date,
+                          @Param("start") LocalTime start, @Param("end") LocalTime end);
+}
@@ -1,13 +1,59 @@
 package com.planning.demomeetingplanner.Repository;
 
 import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Model.RoomVersion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.LockOptions;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface RepoRoom extends JpaRepository<Room,Integer> {
 
     List<Room> findAllByAvailability(boolean b);
+
+    //lectures du catalogue : les équipements sont chargés dans la même requête (pas de N+1)
+    @EntityGraph(attributePaths = "equipment")
+    List<Room> findAllWithEquipmentByOrderByIdAsc();
+
+    @EntityGraph(attributePaths = "equipment")
+    List<Room> findAllWithEquipmentByAvailabilityOrderByIdAsc(boolean availability);
+
+    @EntityGraph(attributePaths = "equipment")
+    List<Room> findWithEquipmentByIdInOrderByIdAsc(Collection<Integer> ids);
+
+    @EntityGraph(attributePaths = "equipment")
+    Optional<Room> findWithEquipmentById(Integer id);
+
+    //ids seulement, pour découper une page keyset avant de charger les salles avec leurs équipements
+    @Query("select r.id from Room r where r.id > :after order by r.id")
+    List<Integer> findIdsAfter(@Param("after") Integer after, Limit limit);
+
+    @Query("select r.id from Room r where r.availability = :availability and r.id > :after order by r.id")
+    List<Integer> findIdsByAvailabilityAfter(@Param("availability") boolean availability, @Param("after") Integer after, Limit limit);
+
+    //versions de toutes les salles, pour ne relire que celles qui ont changé (mode cluster)
+    @Query("select new com.planning.demomeetingplanner.Model.RoomVersion(r.id, r.version) from Room r")
+    List<RoomVersion> findAllVersions();
+
+    //lecture d'une salle dont la version sera incrémentée à la validation de la transaction
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    Optional<Room> findLockedById(Integer id);
+
+    //mode cluster : select ... for update skip locked, les salles déjà verrouillées par une autre instance sont sautées
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "" + LockOptions.SKIP_LOCKED))
+    @Query("select r from Room r where r.id in :ids order by r.id")
+    List<Room> claimAllByIdIn(@Param("ids") Collection<Integer> ids);
 }
@@ -0,0 +1,250 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Journal.JournaledJdbc;
+import com.planning.demomeetingplanner.Model.BatchReservationResult;
+import com.planning.demomeetingplanner.Model.BatchReservationResult.Mode;
+import com.planning.demomeetingplanner.Model.BatchReservationResult.State;
+import com.planning.demomeetingplanner.Model.Meeting;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.Rejection;
+import com.planning.demomeetingplanner.Model.RejectionReason;
+import com.planning.demomeetingplanner.Model.Reservation;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+
+//réservation d'un lot de demandes (salle + réunion) : toutes les règles sont vérifiées en mémoire, y compris entre
+//les demandes du lot, sous les verrous de toutes les salles concernées, puis le lot est écrit dans une seule
+//transaction en écritures groupées
+@Service
+public class BatchReservationService {
+
+    private static final String INSERT_RESERVATION = "insert into reservation (room_id, reservation_date, start_time,"
+            + " end_time, meeting_name, number_ofpeople, meeting_type, booked_at) values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final ReservationRules rules;
+    private final RoomScheduleIndex scheduleIndex;
+    private final RoomLocks roomLocks;
+    private final RoomClaims roomClaims;
+    private final RoomCatalogCache catalogCache;
+    private final RepoRoom repoRoom;
+    private final RepoReservation repoReservation;
+    private final JournaledJdbc journaledJdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final RoomReleaseScheduler releaseScheduler;
+    private final RoomChangeFeed roomChanges;
+    private final RoomUtilisation utilisation;
+    private final ReservationMetrics metrics;
+    private final ClusterRefresh clusterRefresh;
+
+    // nombre maximal de demandes dans un lot
+    @Value("${planner.batch.max-items:500}")
+    private int maxItems;
+
+    @Autowired
+    public BatchReservationService(ReservationRules rules, RoomScheduleIndex scheduleIndex, RoomLocks roomLocks,
+                                   RoomClaims roomClaims, RoomCatalogCache catalogCache, RepoRoom repoRoom,
+                                   RepoReservation repoReservation, JournaledJdbc journaledJdbc,
+                                   TransactionTemplate transactionTemplate,
+                                   RoomReleaseScheduler releaseScheduler, RoomChangeFeed roomChanges,
+                                   RoomUtilisation utilisation, ReservationMetrics metrics,
+                                   ClusterRefresh clusterRefresh) {
+        this.rules = rules;
+        this.scheduleIndex = scheduleIndex;
+        this.roomLocks = roomLocks;
+        this.roomClaims = roomClaims;
+        this.catalogCache = catalogCache;
+        this.repoRoom = repoRoom;
+        this.repoReservation = repoReservation;
+        this.journaledJdbc = journaledJdbc;
+        this.transactionTemplate = transactionTemplate;
+        this.releaseScheduler = releaseScheduler;
+        this.roomChanges = roomChanges;
+        this.utilisation = utilisation;
+        this.metrics = metrics;
+        this.clusterRefresh = clusterRefresh;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    public BatchReservationResult reserveAll(List<ReservationRequestService> requests, Mode mode) {
+        long begin = System.nanoTime();
+        int size = requests.size();
+        int[] roomIds = new int[size];
+        long[] days = new long[size];
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        int[] failed = new int[size];
+        Set<Integer> rooms = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            Meeting meeting = requests.get(i).getMeeting();
+            roomIds[i] = requests.get(i).getRoom().getId();
+            days[i] = PlanningTime.epochDay(meeting.getMeetingDate());
+            starts[i] = PlanningTime.minuteOfDay(meeting.getStartTime());
+            ends[i] = PlanningTime.minuteOfDay(meeting.getEndTime());
+            rooms.add(roomIds[i]);
+        }
+        // par salle, jour puis heure : les demandes d'une même salle sont vérifiées l'une après l'autre
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> roomIds[i])
+                .thenComparingLong(i -> days[i]).thenComparingInt(i -> starts[i]));
+
+        List<Lock> locks = roomLocks.locksFor(rooms);
+        locks.forEach(Lock::lock);
+        try {
+            List<Integer> booked = new ArrayList<>(size);
+            for (int i : order) {
+                failed[i] = rules.check(roomIds[i], days[i], starts[i], ends[i], requests.get(i).getMeeting().getMeetingType());
+                // réserver aussitôt dans l'index : les demandes suivantes du lot voient ce créneau
+                if (failed[i] == ReservationRules.ACCEPTED && !scheduleIndex.tryBook(roomIds[i], days[i], starts[i], ends[i])) {
+                    failed[i] = RejectionReason.SLOT_CONFLICT.mask();
+                }
+                if (failed[i] == ReservationRules.ACCEPTED) {
+                    booked.add(i);
+                }
+            }
+
+            boolean committed = false;
+            if (!booked.isEmpty() && (mode == Mode.BEST_EFFORT || booked.size() == size)) {
+                try {
+                    committed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                        if (!write(requests, booked, mode, roomIds, days, starts, ends, failed)) {
+                            status.setRollbackOnly();
+                            return false;
+                        }
+                        return true;
+                    }));
+                } catch (OptimisticLockingFailureException e) {
+                    // les verrous de ce processus sont tenus : seule une autre instance a pu réserver ces salles
+                    for (int i : booked) {
+                        failed[i] = RejectionReason.SLOT_CONFLICT.mask();
+                    }
+                } catch (RuntimeException e) {
+                    release(booked, roomIds, days, starts, ends);
+                    throw e;
+                }
+            }
+
+            List<BatchReservationResult.Item> items = new ArrayList<>(size);
+            int accepted = 0;
+            for (int i = 0; i < size; i++) {
+                State state;
+                if (failed[i] != ReservationRules.ACCEPTED) {
+                    state = State.REJECTED;
+                    metrics.rejection(RejectionReason.first(failed[i]));
+                    utilisation.rejected(roomIds[i], days[i], requests.get(i).getMeeting().getMeetingType(), failed[i]);
+                } else if (committed) {
+                    state = State.ACCEPTED;
+                    accepted++;
+                } else {
+                    state = State.CANCELLED;
+                }
+                items.add(new BatchReservationResult.Item(i, roomIds[i], state,
+                        state == State.REJECTED ? Rejection.of(failed[i]) : List.of()));
+            }
+            for (int i : booked) {
+                if (committed && failed[i] == ReservationRules.ACCEPTED) {
+                    catalogCache.evict(roomIds[i]);
+                    releaseScheduler.schedule(roomIds[i], days[i], starts[i], ends[i]);
+                    roomChanges.reserved(roomIds[i], days[i], starts[i], ends[i]);
+                    Meeting meeting = requests.get(i).getMeeting();
+                    utilisation.booked(roomIds[i], days[i], starts[i], ends[i], meeting.getNumberOfpeople(), meeting.getMeetingType());
+                } else {
+                    scheduleIndex.release(roomIds[i], days[i], starts[i], ends[i]);
+                }
+            }
+            for (int i : booked) {
+                if (failed[i] == RejectionReason.SLOT_CONFLICT.mask()) {
+                    // libre dans l'index mais pris en base par une autre instance : on recharge cette journée
+                    clusterRefresh.reloadDay(roomIds[i], days[i]);
+                }
+            }
+            BatchReservationResult result = new BatchReservationResult(mode, accepted, items);
+            metrics.batch(result, System.nanoTime() - begin);
+            return result;
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    //écrit les demandes acceptées en mémoire ; renvoie false si le lot doit être annulé (tout ou rien)
+    private boolean write(List<ReservationRequestService> requests, List<Integer> booked, Mode mode,
+                          int[] roomIds, long[] days, int[] starts, int[] ends, int[] failed) {
+        // chaque salle n'est prise qu'une fois (voir RoomClaims)
+        Map<Integer, Optional<Room>> rooms = new HashMap<>();
+        List<Integer> kept = new ArrayList<>(booked.size());
+        for (int i : booked) {
+            Optional<Room> room = rooms.computeIfAbsent(roomIds[i], roomClaims::claim);
+            if (room.isEmpty()) {
+                failed[i] = roomClaims.claimFailure(roomIds[i], days[i], starts[i], ends[i]);
+            } else if (roomClaims.isClustered() && repoReservation.existsOverlap(roomIds[i], PlanningTime.toLocalDate(days[i]),
+                    PlanningTime.toLocalTime(starts[i] - RoomScheduleIndex.BUFFER_MINUTES),
+                    PlanningTime.toLocalTime(ends[i] + RoomScheduleIndex.BUFFER_MINUTES))) {
+                // réservé en base par une autre instance
+                failed[i] = RejectionReason.SLOT_CONFLICT.mask();
+            } else {
+                kept.add(i);
+            }
+        }
+        if (kept.isEmpty() || (mode == Mode.ALL_OR_NOTHING && kept.size() < booked.size())) {
+            return false;
+        }
+
+        List<Reservation> reservations = new ArrayList<>(kept.size());
+        List<Integer> meetingIds = new ArrayList<>();
+        for (int i : kept) {
+            Meeting meeting = requests.get(i).getMeeting();
+            reservations.add(Reservation.of(roomIds[i], meeting, days[i], starts[i], ends[i]));
+            rooms.get(roomIds[i]).ifPresent(room -> room.setAvailability(false));
+            if (meeting.getId() != null) {
+                meetingIds.add(meeting.getId());
+            }
+        }
+        insert(reservations);
+        rooms.values().forEach(room -> room.ifPresent(repoRoom::save));
+        journaledJdbc.deleteAll("meeting", meetingIds);
+        return true;
+    }
+
+    // un seul lot JDBC pour toutes les réservations (l'insertion JPA ferait un aller-retour par ligne)
+    private void insert(List<Reservation> reservations) {
+        journaledJdbc.insertAll(INSERT_RESERVATION, reservations, (statement, reservation) -> {
+            statement.setInt(1, reservation.getRoomId());
+            statement.setDate(2, Date.valueOf(reservation.getReservationDate()));
+            statement.setTime(3, Time.valueOf(reservation.getStartTime()));
+            statement.setTime(4, Time.valueOf(reservation.getEndTime()));
+            statement.setString(5, reservation.getMeetingName());
+            statement.setInt(6, reservation.getNumberOfpeople());
+            if (reservation.getMeetingType() == null) {
+                statement.setNull(7, java.sql.Types.TINYINT);
+            } else {
+                statement.setInt(7, reservation.getMeetingType().ordinal());
+            }
+            statement.setTimestamp(8, Timestamp.valueOf(reservation.getBookedAt()));
+        }, Reservation::setId);
+    }
+
+    private void release(List<Integer> booked, int[] roomIds, long[] days, int[] starts, int[] ends) {
+        for (int i : booked) {
+            scheduleIndex.release(roomIds[i], days[i], starts[i], ends[i]);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Journal.JournaledJdbc;
+import com.planning.demomeetingplanner.Model.Meeting;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.Reservation;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Repository.RepoMeeting;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+
+//planifie en une seule passe toutes les demandes de réunion en attente
+@Service
+public class BatchSchedulerService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchSchedulerService.class);
+
+    private final RepoRoom repoRoom;
+    private final RepoMeeting repoMeeting;
+    private final RepoReservation repoReservation;
+    private final ReservationService reservationService;
+    private final RoomScheduleIndex scheduleIndex;
+    private final RoomCatalogIndex catalogIndex;
+    private final RoomCatalogCache catalogCache;
+    private final TransactionTemplate transactionTemplate;
+    private final JournaledJdbc journaledJdbc;
+    private final RoomReleaseScheduler releaseScheduler;
+    private final RoomClaims roomClaims;
+    private final RoomChangeFeed roomChanges;
+    private final RoomUtilisation utilisation;
+
+    // une seule planification globale à la fois
+    private final ReentrantLock running = new ReentrantLock();
+
+    @Autowired
+    public BatchSchedulerService(RepoRoom repoRoom, RepoMeeting repoMeeting, RepoReservation repoReservation,
+                                 ReservationService reservationService,
+                                 RoomScheduleIndex scheduleIndex, RoomCatalogIndex catalogIndex, RoomCatalogCache catalogCache,
+                                 TransactionTemplate transactionTemplate, JournaledJdbc journaledJdbc,
+                                 RoomReleaseScheduler releaseScheduler, RoomClaims roomClaims,
+                                 RoomChangeFeed roomChanges, RoomUtilisation utilisation) {
+        this.repoRoom = repoRoom;
+        this.repoMeeting = repoMeeting;
+        this.repoReservation = repoReservation;
+        this.reservationService = reservationService;
+        this.scheduleIndex = scheduleIndex;
+        this.catalogIndex = catalogIndex;
+        this.catalogCache = catalogCache;
+        this.transactionTemplate = transactionTemplate;
+        this.journaledJdbc = journaledJdbc;
+        this.releaseScheduler = releaseScheduler;
+        this.roomClaims = roomClaims;
+        this.roomChanges = roomChanges;
+        this.utilisation = utilisation;
+    }
+
+    //lancement automatique, désactivé tant que planner.scheduler.cron n'est pas renseigné
+    @Scheduled(cron = "${planner.scheduler.cron:-}")
+    public void scheduledRun() {
+        ScheduleReport report = scheduleAll();
+        log.info("Planification automatique : {} réunion(s) placée(s), {} sans salle",
+                report.assigned().size(), report.unassigned().size());
+    }
+
+    //attribue une salle à chaque demande en attente puis enregistre le tout dans une seule transaction
+    public ScheduleReport scheduleAll() {
+        if (!running.tryLock()) {
+            throw new IllegalStateException("Une planification est déjà en cours.");
+        }
+        try {
+            List<Integer> unassigned = new ArrayList<>();
+            // regrouper les demandes valides par jour : les journées sont indépendantes
+            Map<Long, List<Meeting>> meetingsByDay = new HashMap<>();
+            for (Meeting meeting : repoMeeting.findAll()) {
+                if (reservationService.isSchedulable(meeting)) {
+                    meetingsByDay.computeIfAbsent(PlanningTime.epochDay(meeting.getMeetingDate()),
+                            day -> new ArrayList<>()).add(meeting);
+                } else {
+                    unassigned.add(meeting.getId());
+                }
+            }
+
+            // planifier chaque journée en parallèle
+            List<DayTask> tasks = new ArrayList<>();
+            meetingsByDay.forEach((day, meetings) -> tasks.add(new DayTask(day, meetings)));
+            ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+            List<Placement> planned = new ArrayList<>();
+            for (DayTask task : tasks) {
+                planned.addAll(task.placements);
+                unassigned.addAll(task.unplaced);
+            }
+
+            Committed committed;
+            try {
+                committed = transactionTemplate.execute(status -> commit(planned));
+            } catch (RuntimeException e) {
+                // l'enregistrement a échoué : on retire les créneaux pris dans l'index
+                for (Placement placement : planned) {
+                    scheduleIndex.release(placement.roomId(), placement.day(), placement.start(), placement.end());
+                }
+                throw e;
+            }
+            List<Placement> placements = committed.placements();
+            for (Placement placement : committed.dropped()) {
+                scheduleIndex.release(placement.roomId(), placement.day(), placement.start(), placement.end());
+            }
+            unassigned.addAll(committed.unassigned());
+            for (Placement placement : placements) {
+                catalogCache.evict(placement.roomId());
+                releaseScheduler.schedule(placement.roomId(), placement.day(), placement.start(), placement.end());
+                roomChanges.reserved(placement.roomId(), placement.day(), placement.start(), placement.end());
+                utilisation.booked(placement.roomId(), placement.day(), placement.start(), placement.end(),
+                        placement.meeting().getNumberOfpeople(), placement.meeting().getMeetingType());
+            }
+
+            List<Assignment> assigned = new ArrayList<>(placements.size());
+            for (Placement placement : placements) {
+                assigned.add(new Assignment(placement.meeting().getId(), placement.roomId()));
+            }
+            return new ScheduleReport(assigned, unassigned);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    //enregistre les réservations, marque les salles réservées et supprime les demandes placées, en écritures groupées
+    //seuls les placements dont la salle et la demande ont été prises (voir RoomClaims) sont enregistrés ; en mode
+    //cluster, ils sont aussi vérifiés contre les réservations en base faites par les autres instances
+    private Committed commit(List<Placement> planned) {
+        List<Placement> placements = new ArrayList<>(planned.size());
+        List<Placement> dropped = new ArrayList<>();
+        List<Integer> unassigned = new ArrayList<>();
+        if (planned.isEmpty()) {
+            return new Committed(placements, dropped, unassigned);
+        }
+        Set<Integer> plannedRooms = new HashSet<>();
+        Set<Integer> plannedMeetings = new HashSet<>();
+        for (Placement placement : planned) {
+            plannedRooms.add(placement.roomId());
+            plannedMeetings.add(placement.meeting().getId());
+        }
+        Map<Integer, Room> rooms = roomClaims.claimAll(plannedRooms);
+        Set<Integer> meetings = roomClaims.claimMeetings(plannedMeetings);
+
+        Set<Room> roomsToSave = new HashSet<>();
+        List<Reservation> reservations = new ArrayList<>(planned.size());
+        List<Integer> meetingIds = new ArrayList<>(planned.size());
+        for (Placement placement : planned) {
+            Room room = rooms.get(placement.roomId());
+            if (!meetings.contains(placement.meeting().getId())) {
+                // demande traitée par une autre instance
+                dropped.add(placement);
+                continue;
+            }
+            if (room == null || (roomClaims.isClustered() && repoReservation.existsOverlap(placement.roomId(),
+                    PlanningTime.toLocalDate(placement.day()),
+                    PlanningTime.toLocalTime(placement.start() - RoomScheduleIndex.BUFFER_MINUTES),
+                    PlanningTime.toLocalTime(placement.end() + RoomScheduleIndex.BUFFER_MINUTES)))) {
+                // salle prise par une autre instance ou créneau déjà réservé en base : la demande reste en attente
+                dropped.add(placement);
+                unassigned.add(placement.meeting().getId());
+                continue;
+            }
+            placements.add(placement);
+            room.setAvailability(false);
+            roomsToSave.add(room);
+            reservations.add(Reservation.of(placement.roomId(), placement.meeting(),
+                    placement.day(), placement.start(), placement.end()));
+            meetingIds.add(placement.meeting().getId());
+        }
+        if (placements.isEmpty()) {
+            return new Committed(placements, dropped, unassigned);
+        }
+        repoRoom.saveAll(roomsToSave);
+        repoReservation.saveAll(reservations);
+        journaledJdbc.deleteAll("meeting", meetingIds);
+        return new Committed(placements, dropped, unassigned);
+    }
+
+    //planification d'une journée : les plus grosses réunions d'abord, chacune dans la plus petite salle ouverte et libre
+    private class DayTask extends RecursiveTask<Void> {
+
+        private final long day;
+        private final List<Meeting> meetings;
+        private final List<Placement> placements = new ArrayList<>();
+        private final List<Integer> unplaced = new ArrayList<>();
+
+        DayTask(long day, List<Meeting> meetings) {
+            this.day = day;
+            this.meetings = meetings;
+        }
+
+        @Override
+        protected Void compute() {
+            meetings.sort(Comparator.comparingInt(Meeting::getNumberOfpeople).reversed()
+                    .thenComparing(Meeting::getStartTime));
+            for (Meeting meeting : meetings) {
+                int start = PlanningTime.minuteOfDay(meeting.getStartTime());
+                int end = PlanningTime.minuteOfDay(meeting.getEndTime());
+                Integer chosen = null;
+                for (Integer roomId : catalogIndex.candidates(meeting.getMeetingType(), meeting.getNumberOfpeople())) {
+                    if (catalogIndex.isOpen(roomId, start, end) && scheduleIndex.tryBook(roomId, day, start, end)) {
+                        chosen = roomId;
+                        break;
+                    }
+                }
+                if (chosen != null) {
+                    placements.add(new Placement(meeting, chosen, day, start, end));
+                } else {
+                    unplaced.add(meeting.getId());
+                }
+            }
+            return null;
+        }
+    }
+
+    private record Placement(Meeting meeting, Integer roomId, long day, int start, int end) {
+    }
+
+    private record Committed(List<Placement> placements, List<Placement> dropped, List<Integer> unassigned) {
+    }
+
+    public record Assignment(Integer meetingId, Integer roomId) {
+    }
+
+    public record ScheduleReport(List<Assignment> assigned, List<Integer> unassigned) {
+    }
+}
@@ -0,0 +1,137 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.Reservation;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Model.RoomVersion;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+//mode cluster : chaque instance a ses propres index en mémoire (catalogue des salles, créneaux réservés)
+//ils sont relus en base à intervalle régulier pour voir les salles ajoutées, modifiées ou supprimées
+//et les réservations faites par les autres instances ; une journée est aussi relue dès qu'un conflit n'a été vu
+//que par la base
+@Component
+public class ClusterRefresh {
+
+    private static final int PAGE_SIZE = 1000;
+    // ids auto-incrémentés attribués avant l'insertion : une transaction plus lente peut valider une id inférieure
+    // à la dernière relue, les dernières ids sont donc relues à chaque passage
+    private static final int LATE_COMMITS = 100;
+
+    private final RoomClaims roomClaims;
+    private final RepoRoom repoRoom;
+    private final RepoReservation repoReservation;
+    private final RoomCatalogIndex catalogIndex;
+    private final RoomCatalogCache catalogCache;
+    private final RoomScheduleIndex scheduleIndex;
+    private final RoomReleaseScheduler releaseScheduler;
+
+    // roomId -> version de la salle à la dernière relecture
+    private final Map<Integer, Long> versions = new HashMap<>();
+    // id de la dernière réservation relue
+    private int lastReservationId;
+
+    @Autowired
+    public ClusterRefresh(RoomClaims roomClaims, RepoRoom repoRoom, RepoReservation repoReservation,
+                          RoomCatalogIndex catalogIndex, RoomCatalogCache catalogCache,
+                          RoomScheduleIndex scheduleIndex, RoomReleaseScheduler releaseScheduler) {
+        this.roomClaims = roomClaims;
+        this.repoRoom = repoRoom;
+        this.repoReservation = repoReservation;
+        this.catalogIndex = catalogIndex;
+        this.catalogCache = catalogCache;
+        this.scheduleIndex = scheduleIndex;
+        this.releaseScheduler = releaseScheduler;
+    }
+
+    @Scheduled(fixedDelayString = "${planner.cluster.refresh:5000}")
+    public synchronized void refresh() {
+        if (!roomClaims.isClustered()) {
+            return;
+        }
+        refreshRooms();
+        refreshReservations();
+    }
+
+    //relit les réservations d'une salle pour une journée : la base a refusé un créneau que l'index disait libre
+    public void reloadDay(int roomId, long day) {
+        LocalDate date = PlanningTime.toLocalDate(day);
+        LocalDateTime now = LocalDateTime.now();
+        for (Reservation reservation : repoReservation
+                .findByRoomIdAndReservationDateBetweenOrderByReservationDateAscStartTimeAsc(roomId, date, date)) {
+            index(reservation, now);
+        }
+    }
+
+    //relit les salles dont la version a changé et oublie celles qui ont disparu depuis la relecture précédente
+    //(une salle ajoutée par cette instance pendant la relecture n'est pas dans versions : elle n'est pas retirée)
+    private void refreshRooms() {
+        Map<Integer, Long> current = new HashMap<>();
+        List<Integer> changed = new ArrayList<>();
+        for (RoomVersion room : repoRoom.findAllVersions()) {
+            current.put(room.id(), room.version());
+            Long known = versions.get(room.id());
+            if (known == null || known != room.version()) {
+                changed.add(room.id());
+            }
+        }
+        for (Integer roomId : versions.keySet()) {
+            if (!current.containsKey(roomId)) {
+                scheduleIndex.removeRoom(roomId);
+                releaseScheduler.forget(roomId);
+                catalogIndex.remove(roomId);
+                catalogCache.evict(roomId);
+            }
+        }
+        for (int from = 0; from < changed.size(); from += PAGE_SIZE) {
+            for (Room room : repoRoom.findWithEquipmentByIdInOrderByIdAsc(
+                    changed.subList(from, Math.min(from + PAGE_SIZE, changed.size())))) {
+                catalogIndex.register(room);
+                catalogCache.evict(room.getId());
+            }
+        }
+        versions.clear();
+        versions.putAll(current);
+    }
+
+    //ajoute à l'index les réservations à venir enregistrées depuis la relecture précédente ; celles de cette
+    //instance y sont déjà et leur libération est déjà programmée
+    private void refreshReservations() {
+        LocalDateTime now = LocalDateTime.now();
+        int after = Math.max(lastReservationId - LATE_COMMITS, 0);
+        List<Reservation> page;
+        do {
+            page = repoReservation.findByIdGreaterThanAndReservationDateGreaterThanEqualOrderByIdAsc(after,
+                    now.toLocalDate(), Limit.of(PAGE_SIZE));
+            for (Reservation reservation : page) {
+                after = reservation.getId();
+                index(reservation, now);
+            }
+        } while (page.size() == PAGE_SIZE);
+        lastReservationId = Math.max(lastReservationId, after);
+    }
+
+    //ajoute une réservation à l'index, sauf si elle y est déjà, et programme sa libération si elle n'est pas terminée
+    //(une réservation terminée reste dans l'index comme en base, la salle est rendue par l'instance qui l'a faite)
+    private void index(Reservation reservation, LocalDateTime now) {
+        long day = PlanningTime.epochDay(reservation.getReservationDate());
+        int start = PlanningTime.minuteOfDay(reservation.getStartTime());
+        int end = PlanningTime.minuteOfDay(reservation.getEndTime());
+        if (!scheduleIndex.tryBook(reservation.getRoomId(), day, start, end)) {
+            return;
+        }
+        long today = PlanningTime.epochDay(now.toLocalDate());
+        if (day > today || (day == today && end > now.getHour() * 60 + now.getMinute())) {
+            releaseScheduler.schedule(reservation.getRoomId(), day, start, end);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.planning.demomeetingplanner.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//découpe d'une ligne CSV : un champ entre guillemets peut contenir des virgules, "" y représente un guillemet
+final class CsvFields {
+
+    private CsvFields() {
+    }
+
+    // Champs de la ligne, dans l'ordre ; IllegalArgumentException si un guillemet n'est pas refermé
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Guillemet non refermé");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,136 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.FreeSlot;
+import com.planning.demomeetingplanner.Model.FreeSlotPage;
+import com.planning.demomeetingplanner.Model.MeetingType;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static com.planning.demomeetingplanner.Service.RoomScheduleIndex.BUFFER_MINUTES;
+
+//recherche des plages libres d'une journée dans toutes les salles adaptées à une réunion
+@Service
+public class FreeSlotSearch {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    // début, capacité, longueur de la plage, puis id de salle pour un ordre stable d'une page à l'autre
+    private static final Comparator<Window> RANKING = Comparator.comparingInt(Window::from)
+            .thenComparingInt(Window::capacity)
+            .thenComparingInt(window -> window.to() - window.from())
+            .thenComparingInt(Window::roomId);
+
+    private final RoomScheduleIndex scheduleIndex;
+    private final RoomCatalogIndex catalogIndex;
+    private final ReservationRules reservationRules;
+
+    @Autowired
+    public FreeSlotSearch(RoomScheduleIndex scheduleIndex, RoomCatalogIndex catalogIndex, ReservationRules reservationRules) {
+        this.scheduleIndex = scheduleIndex;
+        this.catalogIndex = catalogIndex;
+        this.reservationRules = reservationRules;
+    }
+
+    // Vérifie que la journée et la durée peuvent accueillir une réunion : ACCEPTED ou le masque des règles en échec
+    public int check(LocalDate date, int durationMinutes) {
+        return reservationRules.checkSlot(PlanningTime.epochDay(date), PlanningTime.OPENING_MINUTE,
+                PlanningTime.OPENING_MINUTE + durationMinutes);
+    }
+
+    //plages classées par heure de début, puis de la plus petite salle à la plus grande,
+    //puis de la plage la plus courte à la plus longue (les grandes plages restent aux longues réunions)
+    //after (curseur nextCursor de la page précédente) reprend juste après la dernière plage renvoyée ; sinon page
+    //compte les plages à sauter. Seules les meilleures plages jusqu'à la fin de la page sont gardées, sans tri complet
+    public FreeSlotPage search(LocalDate date, int durationMinutes, int numberOfPeople, MeetingType type,
+                               int page, int size, String after) {
+        long day = PlanningTime.epochDay(date);
+        Window cursor = after == null || after.isBlank() ? null : Window.parse(after);
+        int pageNumber = cursor == null ? Math.max(page, 0) : 0;
+        int pageSize = Math.max(1, Math.min(size, KeysetListing.MAX_PAGE_SIZE));
+        int kept = (int) Math.min((long) (pageNumber + 1) * pageSize, Integer.MAX_VALUE);
+        // tas inversé : la pire des plages gardées est en tête et cède sa place à une meilleure
+        PriorityQueue<Window> best = new PriorityQueue<>(RANKING.reversed());
+        int total = 0;
+        List<Window> windows = new ArrayList<>();
+        for (Integer roomId : catalogIndex.candidates(type, numberOfPeople)) {
+            windows.clear();
+            sweep(roomId, day, durationMinutes, windows);
+            total += windows.size();
+            for (Window window : windows) {
+                if (cursor != null && RANKING.compare(window, cursor) <= 0) {
+                    continue;
+                }
+                if (best.size() < kept) {
+                    best.add(window);
+                } else if (RANKING.compare(window, best.peek()) < 0) {
+                    best.poll();
+                    best.add(window);
+                }
+            }
+        }
+
+        int remaining = best.size();
+        int skipped = Math.min(remaining, kept - pageSize);
+        Window[] ranked = new Window[remaining];
+        for (int i = remaining - 1; i >= 0; i--) {
+            ranked[i] = best.poll();
+        }
+        List<FreeSlot> items = new ArrayList<>(remaining - skipped);
+        for (int i = skipped; i < remaining; i++) {
+            Window window = ranked[i];
+            items.add(new FreeSlot(window.roomId(), window.capacity(), PlanningTime.toLocalTime(window.from()),
+                    PlanningTime.toLocalTime(window.to()), PlanningTime.toLocalTime(window.to() - durationMinutes)));
+        }
+        String nextCursor = remaining - skipped < pageSize ? null : ranked[remaining - 1].cursor();
+        return new FreeSlotPage(items, pageNumber, pageSize, total, nextCursor);
+    }
+
+    //balayage des créneaux triés de la salle : chaque réservation bloque [début - tampon, fin + tampon),
+    //les blocs qui se recouvrent fusionnent et chaque trou assez long entre l'ouverture et la fermeture est une plage libre
+    private void sweep(int roomId, long day, int durationMinutes, List<Window> windows) {
+        int open = catalogIndex.openMinute(roomId);
+        int close = catalogIndex.closeMinute(roomId);
+        int capacity = catalogIndex.capacity(roomId);
+        int[] bookings = scheduleIndex.bookings(roomId, day);
+        int cursor = open;
+        for (int i = 0; i < bookings.length && cursor < close; i += 2) {
+            int blockedFrom = Math.min(bookings[i] - BUFFER_MINUTES, close);
+            if (blockedFrom - cursor >= durationMinutes) {
+                windows.add(new Window(roomId, capacity, cursor, blockedFrom));
+            }
+            cursor = Math.max(cursor, bookings[i + 1] + BUFFER_MINUTES);
+        }
+        if (close - cursor >= durationMinutes) {
+            windows.add(new Window(roomId, capacity, cursor, close));
+        }
+    }
+
+    private record Window(int roomId, int capacity, int from, int to) {
+
+        // curseur "début.capacité.longueur.salle" : la position de la plage dans le classement
+        String cursor() {
+            return from + "." + capacity + "." + (to - from) + "." + roomId;
+        }
+
+        static Window parse(String cursor) {
+            String[] parts = cursor.split("\\.");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Curseur de plage libre invalide : " + cursor);
+            }
+            try {
+                int from = Integer.parseInt(parts[0]);
+                return new Window(Integer.parseInt(parts[3]), Integer.parseInt(parts[1]), from,
+                        from + Integer.parseInt(parts[2]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Curseur de plage libre invalide : " + cursor);
+            }
+        }
+    }
+}
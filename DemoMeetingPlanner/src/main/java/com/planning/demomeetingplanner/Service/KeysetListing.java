@@ -0,0 +1,90 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planning.demomeetingplanner.Model.KeysetPage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+//parcours des listes par id croissant (keyset) : par page ou en flux NDJSON à mémoire constante
+@Component
+public class KeysetListing {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnly;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // nombre de lignes lues à la fois pendant un flux
+    @Value("${planner.listing.fetch-size:500}")
+    private int fetchSize;
+
+    @Autowired
+    public KeysetListing(ObjectMapper objectMapper, TransactionTemplate transactionTemplate) {
+        this.objectMapper = objectMapper;
+        this.readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnly.setReadOnly(true);
+    }
+
+    // Une page d'au plus limit éléments dont l'id est supérieur à after
+    public <T> KeysetPage<T> page(Integer after, Integer limit, BiFunction<Integer, Limit, List<T>> pageAfter,
+                                  Function<T, Integer> idOf) {
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<T> items = pageAfter.apply(after == null ? 0 : after, Limit.of(size));
+        Integer nextCursor = items.size() < size ? null : idOf.apply(items.get(items.size() - 1));
+        return new KeysetPage<>(items, nextCursor);
+    }
+
+    // Écrit tous les éléments, un objet JSON par ligne, en ne gardant qu'une page en mémoire
+    public <T> StreamingResponseBody stream(BiFunction<Integer, Limit, List<T>> pageAfter, Function<T, Integer> idOf) {
+        return out -> {
+            Integer after = 0;
+            while (true) {
+                Integer from = after;
+                // lecture, sérialisation et détachement dans une même transaction, sur le thread du flux :
+                // le contexte de persistance vidé est bien celui qui a chargé la page
+                Chunk chunk = readOnly.execute(status -> {
+                    List<T> items = pageAfter.apply(from, Limit.of(fetchSize));
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    try {
+                        for (T item : items) {
+                            bytes.write(objectMapper.writeValueAsBytes(item));
+                            bytes.write('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    entityManager.clear();
+                    return new Chunk(bytes.toByteArray(), items.size(),
+                            items.isEmpty() ? null : idOf.apply(items.get(items.size() - 1)));
+                });
+                out.write(chunk.bytes());
+                out.flush();
+                if (chunk.count() < fetchSize) {
+                    return;
+                }
+                after = chunk.lastId();
+            }
+        };
+    }
+
+    //une page déjà sérialisée, prête à être écrite hors transaction
+    private record Chunk(byte[] bytes, int count, Integer lastId) {
+    }
+}
@@ -0,0 +1,167 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planning.demomeetingplanner.Journal.JournaledJdbc;
+import com.planning.demomeetingplanner.Model.ImportReport;
+import com.planning.demomeetingplanner.Model.Meeting;
+import com.planning.demomeetingplanner.Model.MeetingType;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.RejectionReason;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+//ingestion en flux des demandes de réunion : validation ligne par ligne et insertion par lots JDBC
+//chaque lot a sa propre transaction : un lot refusé par la base est signalé ligne par ligne sans annuler les autres
+@Service
+public class MeetingIngestionService {
+
+    private static final String INSERT_MEETING = "insert into meeting "
+            + "(name, start_time, end_time, meeting_date, number_ofpeople, meeting_type) values (?, ?, ?, ?, ?, ?)";
+
+    private final ObjectMapper objectMapper;
+    private final JournaledJdbc journaledJdbc;
+    private final TransactionTemplate transactionTemplate;
+
+    // nombre de demandes insérées par lot
+    @Value("${planner.ingest.batch-size:1000}")
+    private int batchSize;
+
+    @Autowired
+    public MeetingIngestionService(ObjectMapper objectMapper, JournaledJdbc journaledJdbc,
+                                   TransactionTemplate transactionTemplate) {
+        this.objectMapper = objectMapper;
+        this.journaledJdbc = journaledJdbc;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Une demande JSON par ligne, au format de /api/addMeetingOrder
+    public ImportReport ingestNdjson(Reader body) throws IOException {
+        return ingest(body, false);
+    }
+
+    // CSV "nom,date,début,fin,participants,type" (ex: Point équipe,2024-06-12,10:00,11:00,6,RS)
+    public ImportReport ingestCsv(Reader body) throws IOException {
+        return ingest(body, true);
+    }
+
+    private ImportReport ingest(Reader body, boolean csv) throws IOException {
+        BufferedReader reader = new BufferedReader(body);
+        List<Meeting> pending = new ArrayList<>(batchSize);
+        // numéro de ligne de chaque demande en attente, pour signaler un lot refusé
+        List<Long> pendingRows = new ArrayList<>(batchSize);
+        List<ImportReport.RowError> errors = new ArrayList<>();
+        int imported = 0;
+        String line;
+        long row = 0;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.isBlank() || (csv && row == 1 && line.toLowerCase().startsWith("name"))) {
+                continue; // ligne vide ou en-tête
+            }
+            try {
+                Meeting meeting = csv ? parseCsv(line) : objectMapper.readValue(line, Meeting.class);
+                String rejection = validate(meeting);
+                if (rejection != null) {
+                    errors.add(new ImportReport.RowError(row, rejection));
+                    continue;
+                }
+                pending.add(meeting);
+                pendingRows.add(row);
+            } catch (JsonProcessingException | IllegalArgumentException | DateTimeParseException e) {
+                errors.add(new ImportReport.RowError(row, "Ligne illisible : " + e.getMessage()));
+                continue;
+            }
+            if (pending.size() >= batchSize) {
+                imported += insert(pending, pendingRows, errors);
+            }
+        }
+        imported += insert(pending, pendingRows, errors);
+        errors.sort(Comparator.comparingLong(ImportReport.RowError::row));
+        return new ImportReport(imported, errors);
+    }
+
+    private static Meeting parseCsv(String line) {
+        // le nom peut contenir une virgule s'il est entre guillemets ("Point, équipe")
+        String[] columns = CsvFields.split(line).toArray(String[]::new);
+        if (columns.length != 6) {
+            throw new IllegalArgumentException("Format attendu : nom,date,début,fin,participants,type");
+        }
+        Meeting meeting = new Meeting();
+        meeting.setName(columns[0].trim());
+        meeting.setMeetingDate(Date.valueOf(LocalDate.parse(columns[1].trim())));
+        meeting.setStartTime(Time.valueOf(LocalTime.parse(columns[2].trim())));
+        meeting.setEndTime(Time.valueOf(LocalTime.parse(columns[3].trim())));
+        meeting.setNumberOfpeople(Integer.parseInt(columns[4].trim()));
+        meeting.setMeetingType(MeetingType.valueOf(columns[5].trim().toUpperCase()));
+        return meeting;
+    }
+
+    // Mêmes règles de date et d'heure que la réservation ; renvoie le motif du refus ou null
+    private static String validate(Meeting meeting) {
+        if (meeting.getMeetingDate() == null || meeting.getStartTime() == null || meeting.getEndTime() == null
+                || meeting.getMeetingType() == null) {
+            return "La date, les heures et le type de réunion sont obligatoires.";
+        }
+        if (meeting.getNumberOfpeople() <= 0) {
+            return "Le nombre de participants doit être positif.";
+        }
+        if (PlanningTime.isWeekend(PlanningTime.epochDay(meeting.getMeetingDate()))) {
+            return RejectionReason.WEEKEND.getMessage();
+        }
+        if (!PlanningTime.isWithinWorkingHours(PlanningTime.minuteOfDay(meeting.getStartTime()),
+                PlanningTime.minuteOfDay(meeting.getEndTime()))) {
+            return RejectionReason.OUTSIDE_HOURS.getMessage();
+        }
+        return null;
+    }
+
+    // Insère le lot dans sa propre transaction puis le vide ; un lot refusé devient une erreur par ligne
+    private int insert(List<Meeting> pending, List<Long> rows, List<ImportReport.RowError> errors) {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        try {
+            Integer inserted = transactionTemplate.execute(status -> write(pending));
+            return inserted == null ? 0 : inserted;
+        } catch (DataAccessException e) {
+            String message = "Lot des lignes " + rows.get(0) + " à " + rows.get(rows.size() - 1)
+                    + " non enregistré : " + e.getMostSpecificCause().getMessage();
+            for (long row : rows) {
+                errors.add(new ImportReport.RowError(row, message));
+            }
+            return 0;
+        } finally {
+            pending.clear();
+            rows.clear();
+        }
+    }
+
+    // Une seule instruction groupée ; renvoie le nombre de lignes insérées selon la base
+    private int write(List<Meeting> pending) {
+        return journaledJdbc.insertAll(INSERT_MEETING, pending, (statement, meeting) -> {
+            statement.setString(1, meeting.getName());
+            statement.setTime(2, meeting.getStartTime());
+            statement.setTime(3, meeting.getEndTime());
+            statement.setTimestamp(4, new Timestamp(meeting.getMeetingDate().getTime()));
+            statement.setInt(5, meeting.getNumberOfpeople());
+            statement.setInt(6, meeting.getMeetingType().ordinal());
+        }, Meeting::setId);
+    }
+}
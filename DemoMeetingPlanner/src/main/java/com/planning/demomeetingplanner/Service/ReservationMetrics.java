@@ -0,0 +1,157 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.BatchReservationResult;
+import com.planning.demomeetingplanner.Model.RejectionReason;
+import com.planning.demomeetingplanner.Model.TicketStatus;
+import com.planning.demomeetingplanner.Repository.RepoMeeting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//métriques du chemin de réservation : latences, refus par motif, file d'attente et tailles des index
+//les latences par endpoint viennent de http.server.requests (actuator), avec histogramme activé dans application.properties
+@Component
+public class ReservationMetrics {
+
+    private final Timer accepted;
+    private final Timer rejected;
+    private final Timer rules;
+    // compteurs créés une fois pour toutes : pas de recherche dans le registre sur le chemin chaud
+    private final Map<RejectionReason, Counter> rejections = new EnumMap<>(RejectionReason.class);
+    // demandes asynchrones, de la soumission à la réponse, par issue
+    private final Map<TicketStatus.State, Timer> queued = new EnumMap<>(TicketStatus.State.class);
+    // lots de /api/reserveRooms par mode, enregistrés ou non ([0] : rien d'enregistré, [1] : enregistré)
+    private final Map<BatchReservationResult.Mode, Timer[]> batches = new EnumMap<>(BatchReservationResult.Mode.class);
+    // demandes des lots, par état
+    private final Map<BatchReservationResult.State, Counter> batchItems = new EnumMap<>(BatchReservationResult.State.class);
+    private final RepoMeeting repoMeeting;
+    // dernier comptage des demandes en attente, relu périodiquement : une collecte ne touche pas la base
+    private final AtomicLong backlog = new AtomicLong();
+
+    @Autowired
+    public ReservationMetrics(MeterRegistry registry, RepoMeeting repoMeeting, RoomScheduleIndex scheduleIndex,
+                              RoomCatalogIndex catalogIndex, RoomCatalogCache catalogCache,
+                              RoomReleaseScheduler releaseScheduler, RoomChangeFeed roomChanges) {
+        this.repoMeeting = repoMeeting;
+        accepted = reservationTimer("accepted", registry);
+        rejected = reservationTimer("rejected", registry);
+        rules = Timer.builder("planner.reservation.rules")
+                .description("Durée des vérifications (week-end, horaires, créneau, équipements)")
+                .publishPercentileHistogram()
+                .register(registry);
+        for (RejectionReason reason : RejectionReason.values()) {
+            rejections.put(reason, Counter.builder("planner.reservation.rejections")
+                    .description("Réservations refusées, par motif")
+                    .tag("reason", reason.tag())
+                    .register(registry));
+        }
+        for (TicketStatus.State state : TicketStatus.State.values()) {
+            if (state != TicketStatus.State.PENDING) {
+                queued.put(state, Timer.builder("planner.reservation.queued")
+                        .description("Durée d'une réservation asynchrone, de la mise en file à la réponse")
+                        .tag("outcome", state.name().toLowerCase())
+                        .publishPercentileHistogram()
+                        .register(registry));
+            }
+        }
+        for (BatchReservationResult.Mode mode : BatchReservationResult.Mode.values()) {
+            batches.put(mode, new Timer[]{batchTimer(mode, "refused", registry), batchTimer(mode, "committed", registry)});
+        }
+        for (BatchReservationResult.State state : BatchReservationResult.State.values()) {
+            batchItems.put(state, Counter.builder("planner.reservation.batch.items")
+                    .description("Demandes des lots de réservations, par état")
+                    .tag("state", state.name().toLowerCase())
+                    .register(registry));
+        }
+
+        Gauge.builder("planner.meetings.backlog", backlog, AtomicLong::get)
+                .description("Demandes de réunion en attente")
+                .register(registry);
+        Gauge.builder("planner.schedule.index.size", scheduleIndex, RoomScheduleIndex::size)
+                .description("Créneaux réservés présents dans l'index")
+                .register(registry);
+        Gauge.builder("planner.catalog.index.size", catalogIndex, RoomCatalogIndex::size)
+                .description("Salles présentes dans l'index du catalogue")
+                .register(registry);
+        Gauge.builder("planner.release.pending", releaseScheduler, RoomReleaseScheduler::pending)
+                .description("Libérations de salles programmées")
+                .register(registry);
+        Gauge.builder("planner.events.subscribers", roomChanges, RoomChangeFeed::subscriberCount)
+                .description("Abonnés au flux des changements de salles")
+                .register(registry);
+        Gauge.builder("planner.cache.rooms.size", catalogCache, cache -> cache.stats().size())
+                .description("Salles présentes dans le cache")
+                .register(registry);
+        FunctionCounter.builder("planner.cache.rooms.requests", catalogCache, cache -> cache.stats().hits())
+                .description("Lectures du cache des salles")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("planner.cache.rooms.requests", catalogCache, cache -> cache.stats().misses())
+                .description("Lectures du cache des salles")
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    // Les demandes arrivent par JPA, par lots JDBC et depuis les autres instances : on recompte plutôt que de suivre chaque écriture
+    @Scheduled(fixedDelayString = "${planner.metrics.backlog-refresh:15000}")
+    public void refreshBacklog() {
+        backlog.set(repoMeeting.count());
+    }
+
+    public void accepted(long elapsedNanos) {
+        accepted.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void rejected(RejectionReason reason, long elapsedNanos) {
+        rejected.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        rejection(reason);
+    }
+
+    // Refus décidé hors de ReservationService.reserveRoom (file asynchrone)
+    public void rejection(RejectionReason reason) {
+        rejections.get(reason).increment();
+    }
+
+    public void queued(TicketStatus.State outcome, long elapsedNanos) {
+        queued.get(outcome).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Lot traité : durée selon qu'il a été enregistré ou non, et nombre de demandes par état
+    public void batch(BatchReservationResult result, long elapsedNanos) {
+        batches.get(result.mode())[result.accepted() > 0 ? 1 : 0].record(elapsedNanos, TimeUnit.NANOSECONDS);
+        for (BatchReservationResult.Item item : result.items()) {
+            batchItems.get(item.state()).increment();
+        }
+    }
+
+    public void rulesChecked(long elapsedNanos) {
+        rules.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer batchTimer(BatchReservationResult.Mode mode, String outcome, MeterRegistry registry) {
+        return Timer.builder("planner.reservation.batch")
+                .description("Durée de BatchReservationService.reserveAll")
+                .tag("mode", mode.name().toLowerCase())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Timer reservationTimer(String outcome, MeterRegistry registry) {
+        return Timer.builder("planner.reservation")
+                .description("Durée de ReservationService.reserveRoom")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,395 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Journal.JournaledJdbc;
+import com.planning.demomeetingplanner.Model.*;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClient;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+//réservations asynchrones : la demande reçoit un ticket, un thread de fond les traite par lots
+//regroupés par salle et par jour, et enregistre chaque lot dans une seule transaction
+//l'url de rappel est vérifiée à la soumission puis avant l'envoi : http(s) seulement, jamais une adresse locale
+//ou interne, sauf hôte déclaré dans planner.queue.callback-hosts (qui devient alors la seule liste acceptée)
+@Service
+public class ReservationQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationQueue.class);
+
+    private final ReservationService reservationService;
+    private final ReservationRules rules;
+    private final RoomScheduleIndex scheduleIndex;
+    private final RoomLocks roomLocks;
+    private final RoomCatalogCache catalogCache;
+    private final RepoRoom repoRoom;
+    private final RepoReservation repoReservation;
+    private final TransactionTemplate transactionTemplate;
+    private final JournaledJdbc journaledJdbc;
+    private final RoomReleaseScheduler releaseScheduler;
+    private final RoomClaims roomClaims;
+    private final RoomChangeFeed roomChanges;
+    private final RoomUtilisation utilisation;
+    private final ReservationMetrics metrics;
+    private final Set<String> callbackHosts;
+    private final RestClient restClient = RestClient.create();
+
+    private final BlockingQueue<Ticket> queue;
+    private final int batchSize;
+    private final Duration ticketRetention;
+    private final Map<Long, Ticket> tickets = new ConcurrentHashMap<>();
+    private final AtomicLong nextTicket = new AtomicLong();
+    // les rappels HTTP ne doivent pas ralentir le traitement des lots
+    private final ExecutorService callbacks = Executors.newFixedThreadPool(2, daemon("reservation-callback"));
+    private Thread worker;
+
+    @Autowired
+    public ReservationQueue(ReservationService reservationService, ReservationRules rules,
+                            RoomScheduleIndex scheduleIndex, RoomLocks roomLocks, RoomCatalogCache catalogCache,
+                            RepoRoom repoRoom, RepoReservation repoReservation,
+                            TransactionTemplate transactionTemplate, JournaledJdbc journaledJdbc,
+                            RoomReleaseScheduler releaseScheduler, RoomClaims roomClaims, RoomChangeFeed roomChanges,
+                            RoomUtilisation utilisation, ReservationMetrics metrics, MeterRegistry registry,
+                            @Value("${planner.queue.capacity:10000}") int capacity,
+                            @Value("${planner.queue.batch-size:200}") int batchSize,
+                            @Value("${planner.queue.ticket-retention:10m}") Duration ticketRetention,
+                            @Value("${planner.queue.callback-hosts:}") List<String> callbackHosts) {
+        this.reservationService = reservationService;
+        this.rules = rules;
+        this.scheduleIndex = scheduleIndex;
+        this.roomLocks = roomLocks;
+        this.catalogCache = catalogCache;
+        this.repoRoom = repoRoom;
+        this.repoReservation = repoReservation;
+        this.transactionTemplate = transactionTemplate;
+        this.journaledJdbc = journaledJdbc;
+        this.releaseScheduler = releaseScheduler;
+        this.roomClaims = roomClaims;
+        this.roomChanges = roomChanges;
+        this.utilisation = utilisation;
+        this.metrics = metrics;
+        this.callbackHosts = new HashSet<>();
+        for (String host : callbackHosts) {
+            if (!host.isBlank()) {
+                this.callbackHosts.add(host.trim().toLowerCase());
+            }
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.ticketRetention = ticketRetention;
+        Gauge.builder("planner.reservation.queue.size", queue, BlockingQueue::size)
+                .description("Demandes de réservation asynchrones en attente de traitement")
+                .register(registry);
+    }
+
+    // Met la demande en file ; vide si la file est pleine (le client doit réessayer plus tard)
+    // IllegalArgumentException si l'url de rappel n'est pas acceptée
+    public Optional<TicketStatus> submit(Room room, Meeting meeting, String callbackUrl) {
+        if (callbackUrl != null) {
+            callbackTarget(callbackUrl);
+        }
+        Ticket ticket = new Ticket(nextTicket.incrementAndGet(), room.getId(), meeting, callbackUrl);
+        tickets.put(ticket.id, ticket);
+        if (!queue.offer(ticket)) {
+            tickets.remove(ticket.id);
+            return Optional.empty();
+        }
+        return Optional.of(ticket.status());
+    }
+
+    public Optional<TicketStatus> status(long ticket) {
+        return Optional.ofNullable(tickets.get(ticket)).map(Ticket::status);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (worker == null) {
+            worker = daemon("reservation-queue").newThread(this::drain);
+            worker.start();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(5_000);
+            worker = null;
+        }
+        callbacks.shutdown();
+    }
+
+    //oublie les tickets terminés depuis plus longtemps que la durée de rétention
+    @Scheduled(fixedDelayString = "${planner.queue.purge-interval:60000}")
+    public void purgeTickets() {
+        long expiredBefore = System.nanoTime() - ticketRetention.toNanos();
+        tickets.values().removeIf(ticket -> ticket.state != TicketStatus.State.PENDING
+                && ticket.completedAt - expiredBefore < 0);
+    }
+
+    private void drain() {
+        List<Ticket> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // attendre une demande, puis prendre toutes celles déjà arrivées, dans la limite du lot
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Lot de réservations asynchrones en échec", e);
+                for (Ticket ticket : batch) {
+                    if (ticket.state == TicketStatus.State.PENDING) {
+                        complete(ticket, TicketStatus.State.FAILED, ReservationRules.ACCEPTED);
+                    }
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<Ticket> batch) {
+        // regrouper par salle puis par jour : un seul passage par verrou de salle
+        batch.sort(Comparator.comparingInt((Ticket ticket) -> ticket.roomId)
+                .thenComparingLong(ticket -> ticket.day)
+                .thenComparingInt(ticket -> ticket.start));
+        List<Ticket> booked = new ArrayList<>(batch.size());
+        try {
+            reserveSlots(batch, booked);
+        } catch (RuntimeException e) {
+            // créneaux pris dans l'index sans ligne en base : on les rend avant que le lot soit marqué en échec
+            for (Ticket ticket : booked) {
+                scheduleIndex.release(ticket.roomId, ticket.day, ticket.start, ticket.end);
+            }
+            throw e;
+        }
+        if (!booked.isEmpty()) {
+            commit(booked);
+        }
+    }
+
+    // Vérifie les règles et prend les créneaux dans l'index, salle par salle ; les demandes retenues vont dans booked
+    private void reserveSlots(List<Ticket> batch, List<Ticket> booked) {
+        int from = 0;
+        while (from < batch.size()) {
+            int roomId = batch.get(from).roomId;
+            int to = from;
+            while (to < batch.size() && batch.get(to).roomId == roomId) {
+                to++;
+            }
+            Lock lock = roomLocks.lockFor(roomId);
+            lock.lock();
+            try {
+                for (Ticket ticket : batch.subList(from, to)) {
+                    int failed = rules.check(roomId, ticket.day, ticket.start, ticket.end, ticket.meeting.getMeetingType());
+                    if (failed == ReservationRules.ACCEPTED
+                            && !scheduleIndex.tryBook(roomId, ticket.day, ticket.start, ticket.end)) {
+                        failed = RejectionReason.SLOT_CONFLICT.mask();
+                    }
+                    if (failed == ReservationRules.ACCEPTED) {
+                        booked.add(ticket);
+                    } else {
+                        reject(ticket, failed);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            from = to;
+        }
+    }
+
+    // enregistre le lot dans une seule transaction ; en cas d'échec, chaque demande est rejouée seule
+    private void commit(List<Ticket> booked) {
+        Map<Ticket, Integer> rejected = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                rejected.clear();
+                Map<Integer, Optional<Room>> rooms = new HashMap<>();
+                List<Reservation> reservations = new ArrayList<>(booked.size());
+                List<Integer> meetingIds = new ArrayList<>();
+                for (Ticket ticket : booked) {
+                    // chaque salle n'est prise qu'une fois par lot (voir RoomClaims)
+                    Optional<Room> room = rooms.computeIfAbsent(ticket.roomId, roomClaims::claim);
+                    if (room.isEmpty()) {
+                        rejected.put(ticket, roomClaims.claimFailure(ticket.roomId, ticket.day, ticket.start, ticket.end));
+                    } else if (repoReservation.existsOverlap(ticket.roomId, PlanningTime.toLocalDate(ticket.day),
+                            PlanningTime.toLocalTime(ticket.start - RoomScheduleIndex.BUFFER_MINUTES),
+                            PlanningTime.toLocalTime(ticket.end + RoomScheduleIndex.BUFFER_MINUTES))) {
+                        rejected.put(ticket, RejectionReason.SLOT_CONFLICT.mask());
+                    } else {
+                        room.get().setAvailability(false);
+                        reservations.add(Reservation.of(ticket.roomId, ticket.meeting, ticket.day, ticket.start, ticket.end));
+                        if (ticket.meeting.getId() != null) {
+                            meetingIds.add(ticket.meeting.getId());
+                        }
+                    }
+                }
+                rooms.values().forEach(room -> room.ifPresent(repoRoom::save));
+                repoReservation.saveAll(reservations);
+                journaledJdbc.deleteAll("meeting", meetingIds);
+            });
+        } catch (RuntimeException e) {
+            // conflit avec une autre instance ou erreur d'écriture : on libère les créneaux et on rejoue
+            for (Ticket ticket : booked) {
+                scheduleIndex.release(ticket.roomId, ticket.day, ticket.start, ticket.end);
+            }
+            for (Ticket ticket : booked) {
+                replay(ticket);
+            }
+            return;
+        }
+        Set<Integer> touchedRooms = new HashSet<>();
+        for (Ticket ticket : booked) {
+            Integer failed = rejected.get(ticket);
+            if (failed == null) {
+                touchedRooms.add(ticket.roomId);
+                releaseScheduler.schedule(ticket.roomId, ticket.day, ticket.start, ticket.end);
+                roomChanges.reserved(ticket.roomId, ticket.day, ticket.start, ticket.end);
+                utilisation.booked(ticket.roomId, ticket.day, ticket.start, ticket.end,
+                        ticket.meeting.getNumberOfpeople(), ticket.meeting.getMeetingType());
+                complete(ticket, TicketStatus.State.ACCEPTED, ReservationRules.ACCEPTED);
+            } else {
+                scheduleIndex.release(ticket.roomId, ticket.day, ticket.start, ticket.end);
+                reject(ticket, failed);
+            }
+        }
+        touchedRooms.forEach(catalogCache::evict);
+    }
+
+    // rejouée seule par ReservationService, qui compte déjà le refus dans les métriques et l'utilisation
+    private void replay(Ticket ticket) {
+        try {
+            Room room = new Room();
+            room.setId(ticket.roomId);
+            int failed = reservationService.reserveRoom(room, ticket.meeting);
+            complete(ticket, failed == ReservationRules.ACCEPTED ? TicketStatus.State.ACCEPTED : TicketStatus.State.REJECTED,
+                    failed);
+        } catch (RuntimeException e) {
+            log.error("Réservation asynchrone {} en échec", ticket.id, e);
+            complete(ticket, TicketStatus.State.FAILED, ReservationRules.ACCEPTED);
+        }
+    }
+
+    private void reject(Ticket ticket, int failedRules) {
+        metrics.rejection(RejectionReason.first(failedRules));
+        utilisation.rejected(ticket.roomId, ticket.day, ticket.meeting.getMeetingType(), failedRules);
+        complete(ticket, TicketStatus.State.REJECTED, failedRules);
+    }
+
+    private void complete(Ticket ticket, TicketStatus.State state, int failedRules) {
+        ticket.failedRules = failedRules;
+        ticket.completedAt = System.nanoTime();
+        ticket.state = state;
+        metrics.queued(state, ticket.completedAt - ticket.submittedAt);
+        if (ticket.callbackUrl != null) {
+            TicketStatus status = ticket.status();
+            callbacks.execute(() -> {
+                try {
+                    // vérifiée de nouveau : le nom d'hôte peut désigner une autre adresse depuis la soumission
+                    restClient.post().uri(callbackTarget(ticket.callbackUrl)).contentType(MediaType.APPLICATION_JSON)
+                            .body(status).retrieve().toBodilessEntity();
+                } catch (RuntimeException e) {
+                    log.warn("Rappel impossible vers {} : {}", ticket.callbackUrl, e.getMessage());
+                }
+            });
+        }
+    }
+
+    // Url de rappel acceptée : http(s), hôte de la liste autorisée si elle est définie,
+    // sinon une adresse publique ; jamais une adresse de bouclage, de lien local ou de multidiffusion
+    private URI callbackTarget(String callbackUrl) {
+        URI uri;
+        try {
+            uri = new URI(callbackUrl);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Url de rappel invalide : " + callbackUrl);
+        }
+        String scheme = uri.getScheme();
+        if (scheme == null || !(scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https"))
+                || uri.getHost() == null || uri.getUserInfo() != null) {
+            throw new IllegalArgumentException("L'url de rappel doit être une adresse http ou https : " + callbackUrl);
+        }
+        String host = uri.getHost().toLowerCase();
+        boolean allowed = callbackHosts.contains(host);
+        if (!callbackHosts.isEmpty() && !allowed) {
+            throw new IllegalArgumentException("Hôte de rappel non autorisé : " + host);
+        }
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Hôte de rappel inconnu : " + host);
+        }
+        for (InetAddress address : addresses) {
+            if (address.isLoopbackAddress() || address.isLinkLocalAddress() || address.isAnyLocalAddress()
+                    || address.isMulticastAddress() || (!allowed && address.isSiteLocalAddress())) {
+                throw new IllegalArgumentException("Adresse de rappel refusée : " + host);
+            }
+        }
+        return uri;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    //demande en attente ; l'état est publié en dernier pour que les autres champs soient visibles avec lui
+    private static final class Ticket {
+
+        final long id;
+        final int roomId;
+        final Meeting meeting;
+        final String callbackUrl;
+        final long day;
+        final int start;
+        final int end;
+        final long submittedAt = System.nanoTime();
+        volatile TicketStatus.State state = TicketStatus.State.PENDING;
+        int failedRules;
+        long completedAt;
+
+        Ticket(long id, int roomId, Meeting meeting, String callbackUrl) {
+            this.id = id;
+            this.roomId = roomId;
+            this.meeting = meeting;
+            this.callbackUrl = callbackUrl;
+            this.day = PlanningTime.epochDay(meeting.getMeetingDate());
+            this.start = PlanningTime.minuteOfDay(meeting.getStartTime());
+            this.end = PlanningTime.minuteOfDay(meeting.getEndTime());
+        }
+
+        TicketStatus status() {
+            TicketStatus.State current = state;
+            return new TicketStatus(id, current, roomId,
+                    current == TicketStatus.State.REJECTED ? Rejection.of(failedRules) : List.of());
+        }
+    }
+}
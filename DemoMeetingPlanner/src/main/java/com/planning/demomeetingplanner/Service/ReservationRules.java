@@ -0,0 +1,87 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.MeetingType;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import static com.planning.demomeetingplanner.Model.RejectionReason.*;
+
+//règles de réservation évaluées sans exception : le résultat est l'ensemble des bits des règles en échec
+//(voir RejectionReason), ACCEPTED si toutes passent
+@Component
+public class ReservationRules {
+
+    public static final int ACCEPTED = 0;
+
+    private final RoomScheduleIndex scheduleIndex;
+    private final RoomCatalogIndex catalogIndex;
+
+    @Autowired
+    public ReservationRules(RoomScheduleIndex scheduleIndex, RoomCatalogIndex catalogIndex) {
+        this.scheduleIndex = scheduleIndex;
+        this.catalogIndex = catalogIndex;
+    }
+
+    // Chemin rapide : s'arrête à la première règle en échec, des moins chères aux plus chères
+    public int check(int roomId, long day, int start, int end, MeetingType type) {
+        int failed = checkSlot(day, start, end);
+        if (failed != ACCEPTED) {
+            return failed;
+        }
+        if (!catalogIndex.contains(roomId)) {
+            return UNKNOWN_ROOM.mask();
+        }
+        if (!hasRequiredEquipment(roomId, type)) {
+            return MISSING_EQUIPMENT.mask();
+        }
+        if (!catalogIndex.isOpen(roomId, start, end)) {
+            return ROOM_CLOSED.mask();
+        }
+        if (!scheduleIndex.isFree(roomId, day, start, end)) {
+            return SLOT_CONFLICT.mask();
+        }
+        return ACCEPTED;
+    }
+
+    // Mode explication : évalue toutes les règles et renvoie chacune de celles en échec
+    public int explain(int roomId, long day, int start, int end, MeetingType type) {
+        int failed = ACCEPTED;
+        if (PlanningTime.isWeekend(day)) {
+            failed |= WEEKEND.mask();
+        }
+        if (!PlanningTime.isWithinWorkingHours(start, end)) {
+            failed |= OUTSIDE_HOURS.mask();
+        }
+        if (!catalogIndex.contains(roomId)) {
+            failed |= UNKNOWN_ROOM.mask();
+        } else {
+            if (!hasRequiredEquipment(roomId, type)) {
+                failed |= MISSING_EQUIPMENT.mask();
+            }
+            if (!catalogIndex.isOpen(roomId, start, end)) {
+                failed |= ROOM_CLOSED.mask();
+            }
+        }
+        if (!scheduleIndex.isFree(roomId, day, start, end)) {
+            failed |= SLOT_CONFLICT.mask();
+        }
+        return failed;
+    }
+
+    // Règles qui ne dépendent que de la date et des heures de la réunion
+    public int checkSlot(long day, int start, int end) {
+        if (PlanningTime.isWeekend(day)) {
+            return WEEKEND.mask();
+        }
+        if (!PlanningTime.isWithinWorkingHours(start, end)) {
+            return OUTSIDE_HOURS.mask();
+        }
+        return ACCEPTED;
+    }
+
+    // Compare le masque précalculé des équipements de la salle à celui exigé par le type de réunion
+    boolean hasRequiredEquipment(int roomId, MeetingType type) {
+        return type.isSatisfiedBy(catalogIndex.capabilities(roomId));
+    }
+}
@@ -1,162 +1,194 @@
 package com.planning.demomeetingplanner.Service;
 
-import com.planning.demomeetingplanner.Exception.EquipmentNotFound;
-import com.planning.demomeetingplanner.Exception.RoomNotAvailable;
 import com.planning.demomeetingplanner.Model.*;
 import com.planning.demomeetingplanner.Repository.RepoMeeting;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
 import com.planning.demomeetingplanner.Repository.RepoRoom;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.sql.Time;
+import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
 
 @Service
 public class ReservationService {
 
     private final RepoRoom repoRoom;
     private final RepoMeeting repoMeeting;
+    private final RepoReservation repoReservation;
+    private final RoomScheduleIndex scheduleIndex;
+    private final RoomCatalogIndex catalogIndex;
+    private final ReservationRules rules;
+    private final RoomLocks roomLocks;
+    private final RoomCatalogCache catalogCache;
+    private final ReservationMetrics metrics;
+    private final RoomReleaseScheduler releaseScheduler;
+    private final RoomClaims roomClaims;
+    private final RoomChangeFeed roomChanges;
+    private final RoomUtilisation utilisation;
+    private final ClusterRefresh clusterRefresh;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public ReservationService(RepoRoom repoRoom, RepoMeeting repoMeeting) {
+    public ReservationService(RepoRoom repoRoom, RepoMeeting repoMeeting, RepoReservation repoReservation,
+                              RoomScheduleIndex scheduleIndex, RoomCatalogIndex catalogIndex, ReservationRules rules,
+                              RoomCatalogCache catalogCache, RoomLocks roomLocks,
+                              TransactionTemplate transactionTemplate, ReservationMetrics metrics,
+                              RoomReleaseScheduler releaseScheduler, RoomClaims roomClaims,
+                              RoomChangeFeed roomChanges, RoomUtilisation utilisation, ClusterRefresh clusterRefresh) {
         this.repoRoom = repoRoom;
         this.repoMeeting = repoMeeting;
+        this.repoReservation = repoReservation;
+        this.scheduleIndex = scheduleIndex;
+        this.catalogIndex = catalogIndex;
+        this.rules = rules;
+        this.roomLocks = roomLocks;
+        this.catalogCache = catalogCache;
+        this.transactionTemplate = transactionTemplate;
+        this.metrics = metrics;
+        this.releaseScheduler = releaseScheduler;
+        this.roomClaims = roomClaims;
+        this.roomChanges = roomChanges;
+        this.utilisation = utilisation;
+        this.clusterRefresh = clusterRefresh;
     }
 
-    //effectuer une reservation en fonction de la salle et de la réunion
-    public boolean reserveRoom(Room room, Meeting meeting) {
-        if (isRoomAvailable(room, meeting)) {
-            room.setAvailability(false);
-            room.setOpenTime(meeting.getEndTime());
-            repoRoom.save(room);
-            //supprime la réunion de la liste des demandes
-            repoMeeting.delete(meeting);
-            return true;
+    //effectuer une reservation en fonction de la salle et de la réunion, en mesurant sa durée et ses refus
+    //renvoie ReservationRules.ACCEPTED ou le bit de la règle qui a refusé la réservation (voir RejectionReason)
+    public int reserveRoom(Room room, Meeting meeting) {
+        long begin = System.nanoTime();
+        int failed = reserve(room, meeting);
+        if (failed == ReservationRules.ACCEPTED) {
+            metrics.accepted(System.nanoTime() - begin);
         } else {
-            return false;
+            metrics.rejected(RejectionReason.first(failed), System.nanoTime() - begin);
+            utilisation.rejected(room.getId(), PlanningTime.epochDay(meeting.getMeetingDate()), meeting.getMeetingType(), failed);
         }
+        return failed;
     }
 
-    //applique les différents critères pour voir si une salle est réservable
-    private boolean isRoomAvailable(Room room, Meeting meeting) {
-        // Vérifier si la salle est disponible pour le créneau horaire spécifié
-        if (!isWeekend(meeting.getMeetingDate()) && isWithinWorkingHours(meeting.getStartTime(), meeting.getEndTime())) {
-            // Vérifier si la salle est disponible pour ce créneau horaire en tenant compte de COVID
-            if (isRoomAvailableForTimeSlot(room, meeting.getStartTime(), meeting.getEndTime())) {
-                // Vérifier si la salle a les équipements nécessaires pour la réunion
-                return hasRequiredEquipment(room, meeting.getMeetingType());
-            }
-        }
-        return false;
+    //toutes les règles en échec pour cette demande, pour expliquer un refus
+    public int explain(Room room, Meeting meeting) {
+        return rules.explain(room.getId(), PlanningTime.epochDay(meeting.getMeetingDate()),
+                PlanningTime.minuteOfDay(meeting.getStartTime()), PlanningTime.minuteOfDay(meeting.getEndTime()),
+                meeting.getMeetingType());
     }
 
-    // Vérifie si c'est le weekend
-    private boolean isWeekend(Date date) {
-        // Récupérer le jour de la semaine
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(date);
-        int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
-
-        // Vérifier si la date est un week-end (samedi ou dimanche)
-        if (dayOfWeek == Calendar.SATURDAY || dayOfWeek == Calendar.SUNDAY) {
-            throw new RoomNotAvailable("La date est un week-end. Nous ne reservons les weekends!");
+    private int reserve(Room room, Meeting meeting) {
+        // conversion unique vers le modèle compact (jour epoch, minutes depuis minuit)
+        long day = PlanningTime.epochDay(meeting.getMeetingDate());
+        int start = PlanningTime.minuteOfDay(meeting.getStartTime());
+        int end = PlanningTime.minuteOfDay(meeting.getEndTime());
+        // un seul thread à la fois réserve une même salle dans ce processus
+        Lock lock = roomLocks.lockFor(room.getId());
+        lock.lock();
+        try {
+            long rulesBegin = System.nanoTime();
+            int failed = rules.check(room.getId(), day, start, end, meeting.getMeetingType());
+            metrics.rulesChecked(System.nanoTime() - rulesBegin);
+            if (failed != ReservationRules.ACCEPTED) {
+                return failed;
+            }
+            if (!scheduleIndex.tryBook(room.getId(), day, start, end)) {
+                return RejectionReason.SLOT_CONFLICT.mask();
+            }
+            try {
+                failed = transactionTemplate.execute(status -> {
+                    // prendre la salle en base (voir RoomClaims) : une réservation concurrente de la même salle
+                    // depuis une autre instance échoue au commit, ou est attendue en mode cluster
+                    Optional<Room> storedRoom = roomClaims.claim(room.getId());
+                    if (storedRoom.isEmpty()) {
+                        return roomClaims.claimFailure(room.getId(), day, start, end);
+                    }
+                    // les réservations persistées font foi, y compris celles faites par une autre instance
+                    if (repoReservation.existsOverlap(room.getId(), PlanningTime.toLocalDate(day),
+                            PlanningTime.toLocalTime(start - RoomScheduleIndex.BUFFER_MINUTES),
+                            PlanningTime.toLocalTime(end + RoomScheduleIndex.BUFFER_MINUTES))) {
+                        status.setRollbackOnly();
+                        return RejectionReason.SLOT_CONFLICT.mask();
+                    }
+                    repoReservation.save(Reservation.of(room.getId(), meeting, day, start, end));
+                    storedRoom.get().setAvailability(false);
+                    repoRoom.save(storedRoom.get());
+                    //supprime la réunion de la liste des demandes
+                    repoMeeting.delete(meeting);
+                    return ReservationRules.ACCEPTED;
+                });
+            } catch (OptimisticLockingFailureException e) {
+                // la salle vient d'être réservée par une autre instance
+                failed = RejectionReason.SLOT_CONFLICT.mask();
+            } catch (RuntimeException e) {
+                // la sauvegarde a échoué, on libère le créneau dans l'index
+                scheduleIndex.release(room.getId(), day, start, end);
+                throw e;
+            }
+            if (failed != ReservationRules.ACCEPTED) {
+                scheduleIndex.release(room.getId(), day, start, end);
+                if (failed == RejectionReason.SLOT_CONFLICT.mask()) {
+                    // l'index disait le créneau libre : une autre instance l'a pris, on recharge cette journée
+                    clusterRefresh.reloadDay(room.getId(), day);
+                }
+                return failed;
+            }
+            // la disponibilité de la salle a changé, elle sera rendue à la fin de la réunion
+            catalogCache.evict(room.getId());
+            releaseScheduler.schedule(room.getId(), day, start, end);
+            roomChanges.reserved(room.getId(), day, start, end);
+            utilisation.booked(room.getId(), day, start, end, meeting.getNumberOfpeople(), meeting.getMeetingType());
+            return ReservationRules.ACCEPTED;
+        } finally {
+            lock.unlock();
         }
-        return false; // La date n'est pas un week-end
     }
 
-    // Vérifie si l'heure de réservation est entre 8H et 20H
-    private boolean isWithinWorkingHours(Time startTime, Time endTime) {
-        // Récupérer l'heure de début
-        Calendar startCalendar = Calendar.getInstance();
-        startCalendar.setTime(startTime);
-        int startHour = startCalendar.get(Calendar.HOUR_OF_DAY);
-
-        // Récupérer l'heure de fin
-        Calendar endCalendar = Calendar.getInstance();
-        endCalendar.setTime(endTime);
-        int endHour = endCalendar.get(Calendar.HOUR_OF_DAY);
-
-        // Vérifier si le créneau horaire est dans les heures de travail (8h-20h)
-        if (!(startHour >= 8 && endHour < 20)) {
-            throw new RoomNotAvailable("L'heure de réservation doit être entre 8h et 20h.");
+    //recharge dans l'index les créneaux réservés à partir d'aujourd'hui et reprogramme leur libération
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadReservations() {
+        for (Reservation reservation : repoReservation.findByReservationDateGreaterThanEqual(LocalDate.now())) {
+            long day = PlanningTime.epochDay(reservation.getReservationDate());
+            int start = PlanningTime.minuteOfDay(reservation.getStartTime());
+            int end = PlanningTime.minuteOfDay(reservation.getEndTime());
+            scheduleIndex.tryBook(reservation.getRoomId(), day, start, end);
+            releaseScheduler.schedule(reservation.getRoomId(), day, start, end);
         }
-        return true; // L'heure de réservation est dans les heures de travail
+        releaseScheduler.recover();
     }
 
-    // Vérifie si la salle est disponible pour le créneau horaire spécifié
-    private boolean isRoomAvailableForTimeSlot(Room room, Time meetingStartTime, Time meetingEndTime) {
-        // Récupérer l'heure à laquelle la réunion commence
-        Calendar startCalendar = Calendar.getInstance();
-        startCalendar.setTime(meetingStartTime);
-        int startHour = startCalendar.get(Calendar.HOUR_OF_DAY);
-
-        // Récupérer l'heure à laquelle la réunion se termine
-        Calendar endCalendar = Calendar.getInstance();
-        endCalendar.setTime(meetingEndTime);
-        int endHour = endCalendar.get(Calendar.HOUR_OF_DAY);
-
-        // Récupérer l'heure d'ouverture de la salle
-        Calendar availableCalendar = Calendar.getInstance();
-        availableCalendar.setTime(room.getOpenTime());
-        int availableHour = availableCalendar.get(Calendar.HOUR_OF_DAY);
-
-        // Comparer si l'heure demandée est supérieure à l'heure disponible pour la salle + 1 heure
-        // à cause de COVID, et aussi si l'heure de fin de la réunion sera avant la fermeture
-        if (!(startHour >= availableHour + 1 && endHour < 20)) {
-            throw new RoomNotAvailable("La salle n'est pas disponible pour ce créneau horaire.");
+    //cherche la plus petite salle équipée et libre pouvant accueillir la réunion
+    public Optional<Integer> findBestRoom(Meeting meeting) {
+        long day = PlanningTime.epochDay(meeting.getMeetingDate());
+        int start = PlanningTime.minuteOfDay(meeting.getStartTime());
+        int end = PlanningTime.minuteOfDay(meeting.getEndTime());
+        if (rules.checkSlot(day, start, end) != ReservationRules.ACCEPTED) {
+            return Optional.empty();
         }
-        return true; // La salle est disponible pour le créneau horaire spécifié
-    }
-
-    // Vérifie si la salle contient les équipements suivant le type de réunion
-    private boolean hasRequiredEquipment(Room room, MeetingType type) {
-        // Vérifier si la salle a les équipements nécessaires pour la réunion
-        List<EquipmentType> requiredEquipments = getRequiredEquipments(type);
-        List<Equipment> roomEquipments = room.getEquipment();
-
-        // Convertir les équipements de la salle en types d'équipements pour la comparaison
-        List<EquipmentType> roomEquipmentTypes = roomEquipments.stream()
-                .map(Equipment::getEquipmentType)
-                .toList();
-
-        // Vérifier si la salle contient tous les équipements requis
-        if (!new HashSet<>(roomEquipmentTypes).containsAll(requiredEquipments)) {
-            throw new EquipmentNotFound("La salle ne possède pas tous les équipements requis pour une réunion de type " + type);
+        // les candidates arrivent par capacité croissante : la première ouverte et libre est la mieux adaptée
+        for (Integer roomId : catalogIndex.candidates(meeting.getMeetingType(), meeting.getNumberOfpeople())) {
+            if (catalogIndex.isOpen(roomId, start, end) && scheduleIndex.isFree(roomId, day, start, end)) {
+                return Optional.of(roomId);
+            }
         }
-
-        // Si tous les équipements requis sont présents, retourner true
-        return true;
+        return Optional.empty();
     }
 
-    //Renvoi la liste des équipements suivant le type de réunion
-    private List<EquipmentType> getRequiredEquipments(MeetingType type) {
-        // Récupérer la liste des équipements nécessaires pour chaque type de réunion
-        List<EquipmentType> requiredEquipments = new ArrayList<>();
+    //vérifie la date et les heures d'une réunion : ReservationRules.ACCEPTED, WEEKEND ou OUTSIDE_HOURS
+    public int checkMeeting(Meeting meeting) {
+        return rules.checkSlot(PlanningTime.epochDay(meeting.getMeetingDate()),
+                PlanningTime.minuteOfDay(meeting.getStartTime()), PlanningTime.minuteOfDay(meeting.getEndTime()));
+    }
 
-        // Ajouter les équipements requis en fonction du type de réunion
-        switch (type) {
-            case VC:
-                requiredEquipments.add(EquipmentType.ECRAN);
-                requiredEquipments.add(EquipmentType.PIEUVRE);
-                requiredEquipments.add(EquipmentType.WEBCAM);
-                break;
-            case RC:
-                requiredEquipments.add(EquipmentType.TABLEAU);
-                requiredEquipments.add(EquipmentType.ECRAN);
-                requiredEquipments.add(EquipmentType.PIEUVRE);
-                break;
-            case SPEC:
-                requiredEquipments.add(EquipmentType.TABLEAU);
-                break;
-            case RS:
-                // Pour les réunions simples, aucun équipement spécifique requis donc Néant
-                requiredEquipments.add(EquipmentType.NEANT);
-                break;
+    //vérifie qu'une réunion tombe un jour ouvré et dans les heures de travail
+    public boolean isSchedulable(Meeting meeting) {
+        if (meeting.getMeetingDate() == null || meeting.getStartTime() == null
+                || meeting.getEndTime() == null || meeting.getMeetingType() == null) {
+            return false;
         }
-
-        return requiredEquipments;
+        return checkMeeting(meeting) == ReservationRules.ACCEPTED;
     }
 
-
 }
@@ -0,0 +1,201 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.RoomView;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+//cache borné (LRU) des salles et de leurs équipements devant RoomQueryService
+//les capacités dérivées (masque d'équipements) restent dans RoomCatalogIndex, déjà en mémoire
+//chaque entrée expire après ttl : une modification faite par une autre instance finit par être relue
+@Component
+public class RoomCatalogCache {
+
+    private static final String ALL_ROOMS = "all";
+    private static final String AVAILABLE_ROOMS = "available";
+    private static final String RESERVED_ROOMS = "reserved";
+
+    private final RoomQueryService roomQueryService;
+    private final RepoRoom repoRoom;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    // vues par id de salle, la moins récemment lue est évincée au-delà de maxSize
+    private final Map<Integer, Cached<RoomView>> views;
+    // listes complètes, invalidées à chaque modification d'une salle
+    private final Map<String, Cached<List<RoomView>>> listings = new HashMap<>();
+    // incrémenté à chaque invalidation : une lecture commencée avant ne remet pas en cache une valeur périmée
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public RoomCatalogCache(RoomQueryService roomQueryService, RepoRoom repoRoom,
+                            @Value("${planner.cache.rooms.max-size:1000}") int maxSize,
+                            @Value("${planner.cache.rooms.ttl:30s}") Duration ttl) {
+        this.roomQueryService = roomQueryService;
+        this.repoRoom = repoRoom;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.views = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Cached<RoomView>> eldest) {
+                if (size() > RoomCatalogCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Optional<RoomView> room(Integer id) {
+        long loadedAt;
+        synchronized (this) {
+            RoomView view = fresh(views, id);
+            if (view != null) {
+                hits.increment();
+                return Optional.of(view);
+            }
+            loadedAt = generation;
+        }
+        misses.increment();
+        Optional<RoomView> loaded = roomQueryService.room(id);
+        loaded.ifPresent(view -> putAll(List.of(view), loadedAt));
+        return loaded;
+    }
+
+    public List<RoomView> allRooms() {
+        return listing(ALL_ROOMS, roomQueryService::allRooms);
+    }
+
+    public List<RoomView> roomsByAvailability(boolean availability) {
+        return listing(availability ? AVAILABLE_ROOMS : RESERVED_ROOMS,
+                () -> roomQueryService.roomsByAvailability(availability));
+    }
+
+    // Page keyset : seuls les ids sont lus en base, les salles absentes du cache sont chargées en une requête
+    public List<RoomView> roomsAfter(Integer after, Limit limit) {
+        return roomsWithIds(repoRoom.findIdsAfter(after, limit));
+    }
+
+    public List<RoomView> roomsByAvailabilityAfter(boolean availability, Integer after, Limit limit) {
+        return roomsWithIds(repoRoom.findIdsByAvailabilityAfter(availability, after, limit));
+    }
+
+    // Invalide une salle (ajout, modification, suppression, réservation) et toutes les listes
+    public synchronized void evict(Integer id) {
+        generation++;
+        views.remove(id);
+        listings.clear();
+    }
+
+    // Invalide seulement les listes : de nouvelles salles ont été ajoutées (import en masse)
+    public synchronized void evictListings() {
+        generation++;
+        listings.clear();
+    }
+
+    public synchronized CacheStats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return new CacheStats(views.size(), maxSize, listings.size(), hitCount, missCount, evictions.sum(),
+                total == 0 ? 0.0 : (double) hitCount / total);
+    }
+
+    private List<RoomView> listing(String key, Supplier<List<RoomView>> loader) {
+        long loadedAt;
+        synchronized (this) {
+            List<RoomView> cached = fresh(listings, key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            loadedAt = generation;
+        }
+        misses.increment();
+        List<RoomView> loaded = List.copyOf(loader.get());
+        synchronized (this) {
+            if (generation == loadedAt) {
+                listings.put(key, new Cached<>(loaded, System.nanoTime() + ttlNanos));
+            }
+        }
+        putAll(loaded, loadedAt);
+        return loaded;
+    }
+
+    private List<RoomView> roomsWithIds(List<Integer> ids) {
+        RoomView[] page = new RoomView[ids.size()];
+        List<Integer> missing = new ArrayList<>();
+        long loadedAt;
+        synchronized (this) {
+            for (int i = 0; i < page.length; i++) {
+                page[i] = fresh(views, ids.get(i));
+                if (page[i] == null) {
+                    missing.add(ids.get(i));
+                }
+            }
+            loadedAt = generation;
+        }
+        hits.add(ids.size() - missing.size());
+        if (missing.isEmpty()) {
+            return Arrays.asList(page);
+        }
+        misses.add(missing.size());
+        List<RoomView> loaded = roomQueryService.roomsWithIds(missing);
+        putAll(loaded, loadedAt);
+        Map<Integer, RoomView> loadedById = new HashMap<>();
+        for (RoomView view : loaded) {
+            loadedById.put(view.id(), view);
+        }
+        // une salle supprimée entre les deux requêtes n'est simplement pas renvoyée
+        List<RoomView> rooms = new ArrayList<>(page.length);
+        for (int i = 0; i < page.length; i++) {
+            RoomView view = page[i] != null ? page[i] : loadedById.get(ids.get(i));
+            if (view != null) {
+                rooms.add(view);
+            }
+        }
+        return rooms;
+    }
+
+    private synchronized void putAll(List<RoomView> loaded, long loadedAt) {
+        if (generation != loadedAt) {
+            return;
+        }
+        long expiresAt = System.nanoTime() + ttlNanos;
+        for (RoomView view : loaded) {
+            views.put(view.id(), new Cached<>(view, expiresAt));
+        }
+    }
+
+    // Valeur en cache si elle n'a pas expiré ; une valeur expirée est retirée et sera relue en base
+    private <K, V> V fresh(Map<K, Cached<V>> entries, K key) {
+        Cached<V> cached = entries.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (System.nanoTime() - cached.expiresAt() >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return cached.value();
+    }
+
+    private record Cached<V>(V value, long expiresAt) {
+    }
+
+    public record CacheStats(int size, int maxSize, int listings, long hits, long misses, long evictions,
+                             double hitRate) {
+    }
+}
@@ -0,0 +1,172 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.Equipment;
+import com.planning.demomeetingplanner.Model.MeetingType;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Time;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+//index en mémoire des salles par capacité et par type de réunion qu'elles peuvent accueillir
+//en mode cluster, chaque instance a le sien : il est relu en base par ClusterRefresh
+@Component
+public class RoomCatalogIndex {
+
+    private final RepoRoom repoRoom;
+    private final boolean clustered;
+
+    // pour chaque type de réunion : salles équipées, triées par capacité puis par id
+    private final Map<MeetingType, NavigableSet<Long>> roomsByType = new EnumMap<>(MeetingType.class);
+    // roomId -> clé (capacité, id), masque des équipements et heures d'ouverture de la salle
+    private final Map<Integer, Entry> entriesByRoom = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RoomCatalogIndex(RepoRoom repoRoom, @Value("${planner.cluster.enabled:false}") boolean clustered) {
+        this.repoRoom = repoRoom;
+        this.clustered = clustered;
+        for (MeetingType type : MeetingType.values()) {
+            roomsByType.put(type, new ConcurrentSkipListSet<>());
+        }
+    }
+
+    //charge toutes les salles existantes au démarrage de l'application
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        for (Room room : repoRoom.findAllWithEquipmentByOrderByIdAsc()) {
+            register(room);
+        }
+    }
+
+    // Ajoute ou met à jour une salle dans l'index
+    public void register(Room room) {
+        remove(room.getId());
+        long key = key(room.getCapacity(), room.getId());
+        int capabilities = capabilitiesOf(room);
+        for (MeetingType type : MeetingType.values()) {
+            if (type.isSatisfiedBy(capabilities)) {
+                roomsByType.get(type).add(key);
+            }
+        }
+        entriesByRoom.put(room.getId(), new Entry(key, capabilities,
+                openingMinute(room.getOpenTime(), PlanningTime.OPENING_MINUTE),
+                openingMinute(room.getCloseTime(), PlanningTime.CLOSING_MINUTE)));
+    }
+
+    // Retire une salle de l'index
+    public void remove(Integer roomId) {
+        Entry entry = entriesByRoom.remove(roomId);
+        if (entry != null) {
+            for (NavigableSet<Long> rooms : roomsByType.values()) {
+                rooms.remove(entry.key());
+            }
+        }
+    }
+
+    // Masque des équipements d'une salle indexée, 0 si la salle est inconnue
+    public int capabilities(Integer roomId) {
+        Entry entry = entriesByRoom.get(roomId);
+        return entry == null ? 0 : entry.capabilities();
+    }
+
+    // Capacité d'une salle indexée, 0 si la salle est inconnue
+    public int capacity(Integer roomId) {
+        Entry entry = entriesByRoom.get(roomId);
+        return entry == null ? 0 : (int) (entry.key() >>> 32);
+    }
+
+    // Heure d'ouverture de la salle en minutes, jamais avant le début des heures de travail
+    public int openMinute(Integer roomId) {
+        Entry entry = entriesByRoom.get(roomId);
+        return entry == null ? PlanningTime.OPENING_MINUTE : Math.max(entry.openMinute(), PlanningTime.OPENING_MINUTE);
+    }
+
+    // Heure de fermeture de la salle en minutes, jamais après la fin des heures de travail
+    public int closeMinute(Integer roomId) {
+        Entry entry = entriesByRoom.get(roomId);
+        return entry == null ? PlanningTime.CLOSING_MINUTE : Math.min(entry.closeMinute(), PlanningTime.CLOSING_MINUTE);
+    }
+
+    // Vrai si la salle est ouverte sur tout le créneau
+    public boolean isOpen(Integer roomId, int start, int end) {
+        return start >= openMinute(roomId) && end <= closeMinute(roomId);
+    }
+
+    // Salles équipées pour ce type de réunion et d'une capacité suffisante, de la plus petite à la plus grande
+    public Iterable<Integer> candidates(MeetingType type, int numberOfPeople) {
+        NavigableSet<Long> fitting = roomsByType.get(type).tailSet(key(Math.max(numberOfPeople, 0), 0), true);
+        return () -> new Iterator<>() {
+            private final Iterator<Long> keys = fitting.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+
+            @Override
+            public Integer next() {
+                return (int) (keys.next() & 0xFFFFFFFFL);
+            }
+        };
+    }
+
+    //vérifie si la salle est indexée ; en mode cluster, une salle absente est cherchée en base et indexée
+    //(ajoutée par une autre instance depuis la dernière relecture)
+    public boolean contains(Integer roomId) {
+        if (entriesByRoom.containsKey(roomId)) {
+            return true;
+        }
+        if (!clustered || roomId == null) {
+            return false;
+        }
+        Optional<Room> room = repoRoom.findWithEquipmentById(roomId);
+        room.ifPresent(this::register);
+        return room.isPresent();
+    }
+
+    // Identifiants des salles indexées
+    public Set<Integer> roomIds() {
+        return Collections.unmodifiableSet(entriesByRoom.keySet());
+    }
+
+    // Nombre de salles indexées
+    public int size() {
+        return entriesByRoom.size();
+    }
+
+    // Calcule le masque des équipements d'une salle à partir de ses lignes Equipment
+    public static int capabilitiesOf(Room room) {
+        int capabilities = 0;
+        if (room.getEquipment() != null) {
+            for (Equipment equipment : room.getEquipment()) {
+                if (equipment.getEquipmentType() != null) {
+                    capabilities |= equipment.getEquipmentType().mask();
+                }
+            }
+        }
+        return capabilities;
+    }
+
+    // une salle sans heure renseignée suit les heures par défaut
+    private static int openingMinute(Time time, int defaultMinute) {
+        return time == null ? defaultMinute : PlanningTime.minuteOfDay(time);
+    }
+
+    // la capacité occupe les bits de poids fort pour trier par capacité puis par id
+    private static long key(int capacity, int roomId) {
+        return ((long) capacity << 32) | (roomId & 0xFFFFFFFFL);
+    }
+
+    private record Entry(long key, int capabilities, int openMinute, int closeMinute) {
+    }
+}
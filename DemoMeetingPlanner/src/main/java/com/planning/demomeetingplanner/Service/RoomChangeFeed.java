@@ -0,0 +1,218 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.RoomChange;
+import com.planning.demomeetingplanner.Model.RoomView;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+//flux des changements de salles (Server-Sent Events) : les écritures déposent leurs changements dans un anneau
+//sans verrou ni attente, chaque abonné le relit à son rythme avec son propre curseur
+//un abonné trop lent, dépassé par l'anneau, reçoit un seul événement "resync" (recharger les listes) au lieu des
+//changements perdus, et un abonné dont la connexion échoue est retiré
+//un abonné sans changement depuis heartbeat reçoit un commentaire SSE : les proxys ne coupent pas la connexion
+//inactive, et une connexion morte est détectée à cet envoi
+@Service
+public class RoomChangeFeed {
+
+    private final AtomicReferenceArray<RoomChange> ring;
+    private final int mask;
+    private final Duration timeout;
+    private final long heartbeatNanos;
+    // prochain numéro de séquence à attribuer ; les numéros plus petits sont publiés ou en cours d'écriture
+    private final AtomicLong next = new AtomicLong();
+    private final Map<SseEmitter, Subscriber> subscribers = new ConcurrentHashMap<>();
+    // les envois réseau se font hors du thread de distribution : un client lent n'en bloque pas d'autres
+    private final ExecutorService senders;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    @Autowired
+    public RoomChangeFeed(@Value("${planner.events.buffer-size:8192}") int bufferSize,
+                          @Value("${planner.events.senders:4}") int senders,
+                          @Value("${planner.events.timeout:30m}") Duration timeout,
+                          @Value("${planner.events.heartbeat:15s}") Duration heartbeat) {
+        // taille arrondie à une puissance de 2 pour passer de la séquence à la case par un masque
+        int capacity = Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.timeout = timeout;
+        this.heartbeatNanos = heartbeat.toNanos();
+        this.senders = Executors.newFixedThreadPool(senders, daemon("room-changes-sender"));
+        this.dispatcher = daemon("room-changes").newThread(this::dispatch);
+        this.dispatcher.start();
+    }
+
+    public void added(Integer roomId, RoomView room) {
+        publish(RoomChange.Kind.ADDED, roomId, -1, 0, 0, room);
+    }
+
+    public void updated(Integer roomId, RoomView room) {
+        publish(RoomChange.Kind.UPDATED, roomId, -1, 0, 0, room);
+    }
+
+    public void deleted(Integer roomId) {
+        publish(RoomChange.Kind.DELETED, roomId, -1, 0, 0, null);
+    }
+
+    public void reserved(Integer roomId, long day, int start, int end) {
+        publish(RoomChange.Kind.RESERVED, roomId, day, start, end, null);
+    }
+
+    public void released(Integer roomId) {
+        publish(RoomChange.Kind.RELEASED, roomId, -1, 0, 0, null);
+    }
+
+    //nouvel abonné ; avec lastEventId (reconnexion), il reprend juste après ce changement s'il est encore dans l'anneau
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = newEmitter(timeout.toMillis());
+        long published = next.get();
+        Subscriber subscriber = new Subscriber(emitter, lastEventId == null ? published : lastEventId + 1);
+        if (subscriber.cursor > published) {
+            // id venu d'avant un redémarrage (les séquences repartent de 0) : le client doit tout recharger
+            subscriber.cursor = published;
+            subscriber.resync = true;
+        }
+        subscribers.put(emitter, subscriber);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(error -> subscribers.remove(emitter));
+        LockSupport.unpark(dispatcher);
+        return emitter;
+    }
+
+    // Nombre d'abonnés connectés
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        senders.shutdownNow();
+        subscribers.keySet().forEach(SseEmitter::complete);
+    }
+
+    // point de substitution des tests, qui relisent les événements envoyés
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    // côté écriture : une incrémentation atomique et une écriture dans l'anneau, puis un réveil sans attente
+    private void publish(RoomChange.Kind kind, Integer roomId, long day, int start, int end, RoomView room) {
+        long sequence = next.getAndIncrement();
+        ring.set((int) (sequence & mask), new RoomChange(sequence, kind, roomId,
+                day < 0 ? null : PlanningTime.toLocalDate(day),
+                day < 0 ? null : PlanningTime.toLocalTime(start),
+                day < 0 ? null : PlanningTime.toLocalTime(end), room));
+        LockSupport.unpark(dispatcher);
+    }
+
+    //réveillé à chaque publication (ou toutes les secondes au plus) : confie chaque abonné en retard, ou inactif
+    //depuis heartbeat, à un thread d'envoi, jamais deux envois à la fois pour le même abonné
+    private void dispatch() {
+        long idle = Math.min(TimeUnit.SECONDS.toNanos(1), heartbeatNanos);
+        while (running) {
+            LockSupport.parkNanos(idle);
+            long published = next.get();
+            long now = System.nanoTime();
+            for (Subscriber subscriber : subscribers.values()) {
+                boolean due = subscriber.resync || subscriber.cursor < published
+                        || now - subscriber.lastSent >= heartbeatNanos;
+                if (due && subscriber.sending.compareAndSet(false, true)) {
+                    try {
+                        senders.execute(() -> send(subscriber));
+                    } catch (RejectedExecutionException e) {
+                        subscriber.sending.set(false);
+                    }
+                }
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            long published = next.get();
+            if (subscriber.resync) {
+                resync(subscriber, published);
+            }
+            while (subscriber.cursor < published) {
+                RoomChange change = ring.get((int) (subscriber.cursor & mask));
+                if (change == null || change.sequence() < subscriber.cursor) {
+                    // numéro attribué mais pas encore écrit : la suite au prochain réveil
+                    break;
+                }
+                if (change.sequence() > subscriber.cursor || published - subscriber.cursor > ring.length()) {
+                    // l'anneau a fait un tour de plus que l'abonné : les changements manqués sont résumés en un seul
+                    resync(subscriber, published);
+                    break;
+                }
+                subscriber.emitter.send(SseEmitter.event().id(Long.toString(change.sequence()))
+                        .name(change.kind().name().toLowerCase()).data(change, MediaType.APPLICATION_JSON));
+                subscriber.cursor++;
+                subscriber.lastSent = System.nanoTime();
+            }
+            if (System.nanoTime() - subscriber.lastSent >= heartbeatNanos) {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                subscriber.lastSent = System.nanoTime();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // client déconnecté ou flux déjà terminé
+            subscribers.remove(subscriber.emitter);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.sending.set(false);
+            if (subscriber.cursor < next.get()) {
+                // publication arrivée pendant l'envoi, alors que l'abonné était encore marqué occupé
+                LockSupport.unpark(dispatcher);
+            }
+        }
+    }
+
+    private void resync(Subscriber subscriber, long published) throws IOException {
+        subscriber.emitter.send(SseEmitter.event().id(Long.toString(published - 1)).name("resync")
+                .data(Map.of("sequence", published - 1), MediaType.APPLICATION_JSON));
+        subscriber.cursor = published;
+        subscriber.resync = false;
+        subscriber.lastSent = System.nanoTime();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Subscriber {
+
+        final SseEmitter emitter;
+        final AtomicBoolean sending = new AtomicBoolean();
+        // prochaine séquence à envoyer ; lue et écrite par un seul thread d'envoi à la fois
+        volatile long cursor;
+        // le client doit recharger ses listes avant de recevoir les changements suivants
+        volatile boolean resync;
+        // dernier envoi (événement ou battement), en System.nanoTime()
+        volatile long lastSent = System.nanoTime();
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
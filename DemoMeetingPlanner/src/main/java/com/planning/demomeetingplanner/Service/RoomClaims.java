@@ -0,0 +1,114 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.Meeting;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.RejectionReason;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Repository.RepoMeeting;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+//prise des salles et des demandes dans une transaction d'écriture, à appeler dans cette transaction
+//mode cluster (planner.cluster.enabled) : plusieurs instances partagent la base ; chaque ligne prise est verrouillée
+//jusqu'au commit avec SKIP LOCKED et la base garantit qu'une salle n'est réservée que par une instance à la fois ;
+//une salle à réserver, prise par une autre instance, est redemandée jusqu'à planner.cluster.claim-wait ms (cette
+//autre instance la garde le temps d'une transaction), le planificateur saute les salles et demandes déjà prises
+//sinon (une seule instance) : lecture avec incrément forcé de la version de la salle
+@Component
+public class RoomClaims {
+
+    // pause entre deux tentatives de prise d'une salle verrouillée par une autre instance
+    private static final long RETRY_MILLIS = 5;
+
+    private final boolean clustered;
+    private final long claimWaitMillis;
+    private final RepoRoom repoRoom;
+    private final RepoMeeting repoMeeting;
+    private final RepoReservation repoReservation;
+
+    @Autowired
+    public RoomClaims(@Value("${planner.cluster.enabled:false}") boolean clustered,
+                      @Value("${planner.cluster.claim-wait:2000}") long claimWaitMillis,
+                      RepoRoom repoRoom, RepoMeeting repoMeeting, RepoReservation repoReservation) {
+        this.clustered = clustered;
+        this.claimWaitMillis = claimWaitMillis;
+        this.repoRoom = repoRoom;
+        this.repoMeeting = repoMeeting;
+        this.repoReservation = repoReservation;
+    }
+
+    public boolean isClustered() {
+        return clustered;
+    }
+
+    // La salle, si elle existe ; en mode cluster, vide aussi si une autre instance la garde au-delà de l'attente
+    public Optional<Room> claim(int roomId) {
+        if (!clustered) {
+            return repoRoom.findLockedById(roomId);
+        }
+        long deadline = System.nanoTime() + claimWaitMillis * 1_000_000;
+        while (true) {
+            List<Room> rooms = repoRoom.claimAllByIdIn(List.of(roomId));
+            if (!rooms.isEmpty()) {
+                return Optional.of(rooms.get(0));
+            }
+            if (System.nanoTime() >= deadline || !repoRoom.existsById(roomId)) {
+                return Optional.empty();
+            }
+            try {
+                Thread.sleep(RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            }
+        }
+    }
+
+    // Les salles existantes et libres de tout verrou parmi celles demandées, par id
+    public Map<Integer, Room> claimAll(Collection<Integer> roomIds) {
+        Map<Integer, Room> claimed = new HashMap<>();
+        if (roomIds.isEmpty()) {
+            return claimed;
+        }
+        List<Room> rooms = clustered ? repoRoom.claimAllByIdIn(roomIds) : repoRoom.findAllById(roomIds);
+        for (Room room : rooms) {
+            claimed.put(room.getId(), room);
+        }
+        return claimed;
+    }
+
+    // Ids des demandes existantes que cette instance est seule à traiter
+    public Set<Integer> claimMeetings(Collection<Integer> meetingIds) {
+        if (!clustered) {
+            return new HashSet<>(meetingIds);
+        }
+        Set<Integer> claimed = new HashSet<>();
+        if (!meetingIds.isEmpty()) {
+            for (Meeting meeting : repoMeeting.claimAllByIdIn(meetingIds)) {
+                claimed.add(meeting.getId());
+            }
+        }
+        return claimed;
+    }
+
+    // Motif d'une prise refusée : salle inconnue, ou créneau déjà réservé en base par une autre instance ;
+    // une salle gardée par une autre instance sans chevauchement n'est pas un conflit, la demande est à refaire
+    public int claimFailure(int roomId, long day, int start, int end) {
+        if (!clustered || !repoRoom.existsById(roomId)) {
+            return RejectionReason.UNKNOWN_ROOM.mask();
+        }
+        if (repoReservation.existsOverlap(roomId, PlanningTime.toLocalDate(day),
+                PlanningTime.toLocalTime(start - RoomScheduleIndex.BUFFER_MINUTES),
+                PlanningTime.toLocalTime(end + RoomScheduleIndex.BUFFER_MINUTES))) {
+            return RejectionReason.SLOT_CONFLICT.mask();
+        }
+        throw new CannotAcquireLockException("La salle " + roomId + " est prise par une autre instance depuis plus de "
+                + claimWaitMillis + " ms, réessayez.");
+    }
+}
@@ -0,0 +1,244 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planning.demomeetingplanner.Controller.ManageController;
+import com.planning.demomeetingplanner.Journal.JournaledJdbc;
+import com.planning.demomeetingplanner.Model.Equipment;
+import com.planning.demomeetingplanner.Model.EquipmentType;
+import com.planning.demomeetingplanner.Model.ImportReport;
+import com.planning.demomeetingplanner.Model.Room;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+//import en masse de salles et de leurs équipements, lu en flux et écrit par lots JDBC
+@Service
+public class RoomImportService {
+
+    private static final String INSERT_ROOM =
+            "insert into room (name, capacity, open_time, close_time, availability, version) values (?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_EQUIPMENT =
+            "insert into equipment (name, description, equipment_type, room_id) values (?, ?, ?, ?)";
+
+    private final ObjectMapper objectMapper;
+    private final JournaledJdbc journaledJdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final RoomCatalogIndex catalogIndex;
+    private final RoomCatalogCache catalogCache;
+    private final RoomChangeFeed roomChanges;
+
+    // nombre de salles écrites par lot JDBC
+    private final int batchSize;
+
+    @Autowired
+    public RoomImportService(ObjectMapper objectMapper, JournaledJdbc journaledJdbc,
+                             TransactionTemplate transactionTemplate, RoomCatalogIndex catalogIndex,
+                             RoomCatalogCache catalogCache, RoomChangeFeed roomChanges,
+                             @Value("${planner.import.batch-size:500}") int batchSize) {
+        this.objectMapper = objectMapper;
+        this.journaledJdbc = journaledJdbc;
+        this.transactionTemplate = transactionTemplate;
+        this.catalogIndex = catalogIndex;
+        this.catalogCache = catalogCache;
+        this.roomChanges = roomChanges;
+        this.batchSize = batchSize;
+    }
+
+    //tableau JSON de salles au format de /api/addRoom, lu élément par élément ; un élément qui n'est pas un objet
+    //est rejeté, un JSON mal formé arrête l'import : les lots déjà écrits restent enregistrés et le bilan donne
+    //la position de l'élément illisible
+    public ImportReport importJson(InputStream body) throws IOException {
+        Batch batch = new Batch();
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Le corps de la requête doit être un tableau JSON de salles.");
+            }
+            // position de l'élément en cours de lecture
+            long row = 0;
+            try {
+                while (true) {
+                    row++;
+                    JsonToken token = parser.nextToken();
+                    if (token == JsonToken.END_ARRAY) {
+                        break;
+                    }
+                    if (token == null) {
+                        batch.reject(row, "Tableau JSON incomplet, import interrompu.");
+                        break;
+                    }
+                    if (token != JsonToken.START_OBJECT) {
+                        // tableau imbriqué ou valeur simple : ignoré en entier, la lecture reprend à l'élément suivant
+                        parser.skipChildren();
+                        batch.reject(row, "Une salle doit être un objet JSON.");
+                        continue;
+                    }
+                    // lire l'élément entier d'abord : une erreur de conversion ne désynchronise pas le flux
+                    JsonNode node = objectMapper.readTree(parser);
+                    try {
+                        batch.add(row, validate(objectMapper.treeToValue(node, Room.class)));
+                    } catch (IOException | IllegalArgumentException e) {
+                        batch.reject(row, e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                // la suite du flux est illisible : on s'arrête là
+                String message = e instanceof JsonProcessingException json ? json.getOriginalMessage() : e.getMessage();
+                batch.reject(row, "JSON invalide, import interrompu : " + message);
+            }
+        }
+        return batch.finish();
+    }
+
+    // CSV "nom,capacité,équipements" où les équipements sont séparés par | (ex: Salle A,12,ECRAN|WEBCAM)
+    public ImportReport importCsv(Reader body) throws IOException {
+        Batch batch = new Batch();
+        BufferedReader reader = new BufferedReader(body);
+        String line;
+        long row = 0;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.isBlank() || (row == 1 && line.toLowerCase().startsWith("name"))) {
+                continue; // ligne vide ou en-tête
+            }
+            try {
+                batch.add(row, validate(parseCsv(line)));
+            } catch (IllegalArgumentException e) {
+                batch.reject(row, e.getMessage());
+            }
+        }
+        return batch.finish();
+    }
+
+    private static Room parseCsv(String line) {
+        String[] columns = CsvFields.split(line).toArray(String[]::new);
+        if (columns.length < 2 || columns.length > 3) {
+            throw new IllegalArgumentException("Format attendu : nom,capacité,équipements");
+        }
+        Room room = new Room();
+        room.setName(columns[0].trim());
+        try {
+            room.setCapacity(Integer.parseInt(columns[1].trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Capacité invalide : " + columns[1]);
+        }
+        if (columns.length == 3 && !columns[2].isBlank()) {
+            for (String type : columns[2].split("\\|")) {
+                Equipment equipment = new Equipment();
+                try {
+                    equipment.setEquipmentType(EquipmentType.valueOf(type.trim().toUpperCase()));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Équipement inconnu : " + type.trim());
+                }
+                equipment.setName(equipment.getEquipmentType().name());
+                room.getEquipment().add(equipment);
+            }
+        }
+        return room;
+    }
+
+    // mêmes valeurs par défaut que /api/addRoom
+    private static Room validate(Room room) {
+        if (room.getName() == null || room.getName().isBlank()) {
+            throw new IllegalArgumentException("Le nom de la salle est obligatoire.");
+        }
+        if (room.getCapacity() <= 0) {
+            throw new IllegalArgumentException("La capacité doit être positive.");
+        }
+        if (room.getEquipment() == null) {
+            room.setEquipment(new ArrayList<>());
+        }
+        room.setId(null);
+        room.setAvailability(true);
+        room.setOpenTime(ManageController.defaultOpenTime);
+        room.setCloseTime(ManageController.defaultCloseTime);
+        return room;
+    }
+
+    //lot de salles en attente d'écriture, avec le bilan de l'import en cours
+    private class Batch {
+
+        private final List<Room> rooms = new ArrayList<>();
+        private final List<Long> rows = new ArrayList<>();
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private int imported;
+
+        void add(long row, Room room) {
+            rooms.add(room);
+            rows.add(row);
+            if (rooms.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long row, String message) {
+            errors.add(new ImportReport.RowError(row, message));
+        }
+
+        ImportReport finish() {
+            flush();
+            return new ImportReport(imported, errors);
+        }
+
+        private void flush() {
+            if (rooms.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(rooms));
+                imported += rooms.size();
+                rooms.forEach(catalogIndex::register);
+                catalogCache.evictListings();
+                // les abonnés rechargent les salles importées à la demande : pas de vue complète dans le flux
+                rooms.forEach(room -> roomChanges.added(room.getId(), null));
+            } catch (RuntimeException e) {
+                // le lot entier a été annulé : toutes ses lignes sont rejetées
+                for (Long row : rows) {
+                    reject(row, "Échec de l'écriture du lot : " + e.getMessage());
+                }
+            }
+            rooms.clear();
+            rows.clear();
+        }
+    }
+
+    // Deux instructions JDBC groupées par lot : les salles (avec récupération des ids), puis leurs équipements
+    private void write(List<Room> rooms) {
+        journaledJdbc.insertAll(INSERT_ROOM, rooms, (statement, room) -> {
+            statement.setString(1, room.getName());
+            statement.setInt(2, room.getCapacity());
+            statement.setTime(3, room.getOpenTime());
+            statement.setTime(4, room.getCloseTime());
+            statement.setBoolean(5, room.isAvailability());
+        }, Room::setId);
+
+        List<Equipment> equipments = new ArrayList<>();
+        for (Room room : rooms) {
+            for (Equipment equipment : room.getEquipment()) {
+                equipment.setRoom(room);
+                equipments.add(equipment);
+            }
+        }
+        journaledJdbc.insertAll(INSERT_EQUIPMENT, equipments, (statement, equipment) -> {
+            statement.setString(1, equipment.getName());
+            statement.setString(2, equipment.getDescription());
+            if (equipment.getEquipmentType() == null) {
+                statement.setNull(3, java.sql.Types.TINYINT);
+            } else {
+                statement.setInt(3, equipment.getEquipmentType().ordinal());
+            }
+            statement.setInt(4, equipment.getRoom().getId());
+        }, Equipment::setId);
+    }
+}
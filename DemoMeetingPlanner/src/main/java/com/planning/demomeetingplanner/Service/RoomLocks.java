@@ -0,0 +1,51 @@
+package com.planning.demomeetingplanner.Service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+//verrous par salle, répartis sur un nombre fixe de verrous pour ne pas en créer un par salle
+@Component
+public class RoomLocks {
+
+    // puissance de 2 pour choisir le verrou par un simple masque
+    private static final int STRIPES = 256;
+
+    private final Lock[] locks = new Lock[STRIPES];
+
+    public RoomLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    // Verrou protégeant les réservations de cette salle dans ce processus
+    public Lock lockFor(int roomId) {
+        return locks[stripe(roomId)];
+    }
+
+    //verrous de plusieurs salles, sans doublon et toujours dans le même ordre (celui des verrous, pas des salles) :
+    //deux appelants qui prennent des salles différentes partageant un verrou ne peuvent pas s'interbloquer
+    public List<Lock> locksFor(Collection<Integer> roomIds) {
+        BitSet stripes = new BitSet(STRIPES);
+        for (Integer roomId : roomIds) {
+            stripes.set(stripe(roomId));
+        }
+        List<Lock> ordered = new ArrayList<>(stripes.cardinality());
+        for (int stripe = stripes.nextSetBit(0); stripe >= 0; stripe = stripes.nextSetBit(stripe + 1)) {
+            ordered.add(locks[stripe]);
+        }
+        return ordered;
+    }
+
+    private static int stripe(int roomId) {
+        // mélange des bits pour répartir les ids consécutifs sur tous les verrous
+        int hash = roomId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,62 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Model.RoomView;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+//lectures du catalogue des salles sous forme de vues, équipements compris, en un nombre fixe de requêtes
+@Service
+@Transactional(readOnly = true)
+public class RoomQueryService {
+
+    private final RepoRoom repoRoom;
+
+    @Autowired
+    public RoomQueryService(RepoRoom repoRoom) {
+        this.repoRoom = repoRoom;
+    }
+
+    // Toutes les salles : une seule requête avec jointure sur les équipements
+    public List<RoomView> allRooms() {
+        return toViews(repoRoom.findAllWithEquipmentByOrderByIdAsc());
+    }
+
+    // Toutes les salles réservées (ou disponibles)
+    public List<RoomView> roomsByAvailability(boolean availability) {
+        return toViews(repoRoom.findAllWithEquipmentByAvailabilityOrderByIdAsc(availability));
+    }
+
+    // Page keyset : les ids de la page, puis les salles de ces ids avec leurs équipements
+    public List<RoomView> roomsAfter(Integer after, Limit limit) {
+        return roomsWithIds(repoRoom.findIdsAfter(after, limit));
+    }
+
+    public List<RoomView> roomsByAvailabilityAfter(boolean availability, Integer after, Limit limit) {
+        return roomsWithIds(repoRoom.findIdsByAvailabilityAfter(availability, after, limit));
+    }
+
+    public Optional<RoomView> room(Integer id) {
+        return repoRoom.findWithEquipmentById(id).map(RoomView::of);
+    }
+
+    // Salles des ids donnés, triées par id, avec leurs équipements
+    public List<RoomView> roomsWithIds(List<Integer> ids) {
+        return ids.isEmpty() ? List.of() : toViews(repoRoom.findWithEquipmentByIdInOrderByIdAsc(ids));
+    }
+
+    private static List<RoomView> toViews(List<Room> rooms) {
+        List<RoomView> views = new ArrayList<>(rooms.size());
+        for (Room room : rooms) {
+            views.add(RoomView.of(room));
+        }
+        return views;
+    }
+}
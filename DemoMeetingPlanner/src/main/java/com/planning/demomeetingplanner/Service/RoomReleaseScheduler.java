@@ -0,0 +1,155 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+
+//libère les salles à la fin de leurs réservations : chaque fin est une échéance de la roue temporelle,
+//le créneau est retiré de l'index et la salle redevient disponible quand sa dernière réservation est terminée
+@Service
+public class RoomReleaseScheduler {
+
+    private final RepoRoom repoRoom;
+    private final RepoReservation repoReservation;
+    private final RoomScheduleIndex scheduleIndex;
+    private final RoomCatalogCache catalogCache;
+    private final RoomLocks roomLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final RoomClaims roomClaims;
+    private final RoomChangeFeed roomChanges;
+
+    // un tic par minute, comme la résolution des créneaux
+    private final TimingWheel wheel = new TimingWheel(currentMinute());
+    // roomId -> nombre de réservations pas encore terminées dans ce processus
+    private final Map<Integer, Integer> pendingByRoom = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RoomReleaseScheduler(RepoRoom repoRoom, RepoReservation repoReservation, RoomScheduleIndex scheduleIndex,
+                                RoomCatalogCache catalogCache, RoomLocks roomLocks, TransactionTemplate transactionTemplate,
+                                RoomClaims roomClaims, RoomChangeFeed roomChanges) {
+        this.repoRoom = repoRoom;
+        this.repoReservation = repoReservation;
+        this.scheduleIndex = scheduleIndex;
+        this.catalogCache = catalogCache;
+        this.roomLocks = roomLocks;
+        this.transactionTemplate = transactionTemplate;
+        this.roomClaims = roomClaims;
+        this.roomChanges = roomChanges;
+    }
+
+    // Programme la libération d'un créneau réservé (après la validation de la réservation)
+    public void schedule(int roomId, long day, int start, int end) {
+        // compté avant l'ajout : un tic concurrent ne peut pas libérer le créneau avant qu'il soit compté
+        pendingByRoom.merge(roomId, 1, Integer::sum);
+        if (!wheel.add(day * PlanningTime.MINUTES_PER_DAY + end, (long) roomId << 32 | start)) {
+            //réservation déjà terminée (date passée) : rien à programmer, son créneau reste dans l'index comme sa
+            //ligne reste en base ; la salle redevient disponible si rien d'autre n'est en cours
+            if (finished(roomId)) {
+                makeAvailable(roomId);
+            }
+        }
+    }
+
+    // Annule les libérations programmées d'une salle supprimée
+    public void forget(int roomId) {
+        wheel.removeIf(payload -> (int) (payload >>> 32) == roomId);
+        pendingByRoom.remove(roomId);
+    }
+
+    //après le rechargement des réservations à venir : les salles restées indisponibles sans réservation en cours
+    //(arrêt avant leur libération) redeviennent disponibles
+    public void recover() {
+        for (Room room : repoRoom.findAllByAvailability(false)) {
+            if (!pendingByRoom.containsKey(room.getId())) {
+                makeAvailable(room.getId());
+            }
+        }
+    }
+
+    //avance la roue jusqu'à la minute courante et libère les créneaux terminés
+    @Scheduled(fixedDelayString = "${planner.release.tick:60000}")
+    public void tick() {
+        long[] expired = wheel.advanceTo(currentMinute());
+        Set<Integer> idle = new HashSet<>();
+        for (int i = 0; i < expired.length; i += 2) {
+            long deadline = expired[i];
+            int roomId = (int) (expired[i + 1] >>> 32);
+            int start = (int) expired[i + 1];
+            // la fin est à minuit au plus tard : une fin à 0h appartient à la veille
+            long day = Math.floorDiv(deadline - 1, PlanningTime.MINUTES_PER_DAY);
+            int end = (int) (deadline - day * PlanningTime.MINUTES_PER_DAY);
+            if (expire(roomId, day, start, end)) {
+                idle.add(roomId);
+            }
+        }
+        idle.forEach(this::makeAvailable);
+    }
+
+    // Nombre de libérations programmées
+    public int pending() {
+        return wheel.size();
+    }
+
+    // retire le créneau de l'index ; renvoie true si c'était la dernière réservation en cours de la salle
+    private boolean expire(int roomId, long day, int start, int end) {
+        scheduleIndex.release(roomId, day, start, end);
+        return finished(roomId);
+    }
+
+    // décompte une réservation terminée ; renvoie true s'il n'en reste aucune en cours pour la salle
+    private boolean finished(int roomId) {
+        return pendingByRoom.computeIfPresent(roomId, (id, count) -> count > 1 ? count - 1 : null) == null;
+    }
+
+    // remet la salle à disponible, sauf si une réservation (éventuellement d'une autre instance) n'est pas terminée
+    private void makeAvailable(int roomId) {
+        Lock lock = roomLocks.lockFor(roomId);
+        lock.lock();
+        try {
+            if (pendingByRoom.containsKey(roomId)) {
+                // réservée entre-temps dans ce processus
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            Boolean released = transactionTemplate.execute(status -> {
+                // une salle prise par une autre instance est en cours de réservation : elle reste indisponible
+                Optional<Room> room = roomClaims.claim(roomId);
+                if (room.isEmpty() || room.get().isAvailability()
+                        || repoReservation.existsNotEndedAt(roomId, now.toLocalDate(), now.toLocalTime())) {
+                    return false;
+                }
+                room.get().setAvailability(true);
+                repoRoom.save(room.get());
+                return true;
+            });
+            if (Boolean.TRUE.equals(released)) {
+                catalogCache.evict(roomId);
+                roomChanges.released(roomId);
+            }
+        } catch (OptimisticLockingFailureException e) {
+            // réservée au même moment par une autre instance : elle reste indisponible
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // minutes écoulées depuis le 01/01/1970 en heure locale, l'échelle des jours et des minutes de PlanningTime
+    private static long currentMinute() {
+        LocalDateTime now = LocalDateTime.now();
+        return now.toLocalDate().toEpochDay() * PlanningTime.MINUTES_PER_DAY + now.getHour() * 60 + now.getMinute();
+    }
+}
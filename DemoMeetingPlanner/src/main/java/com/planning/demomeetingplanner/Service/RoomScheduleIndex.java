@@ -0,0 +1,211 @@
+package com.planning.demomeetingplanner.Service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+//index en mémoire des créneaux réservés, par salle et par jour
+//les jours sont des jours epoch et les heures des minutes depuis minuit (voir PlanningTime)
+@Component
+public class RoomScheduleIndex {
+
+    // tampon COVID à respecter entre deux réunions dans la même salle (en minutes)
+    public static final int BUFFER_MINUTES = 60;
+
+    private static final int[] NO_BOOKINGS = new int[0];
+
+    // plannings indexés directement par id de salle (ids auto-incrémentés, donc denses) :
+    // la lecture se fait sans verrou et sans boxing, l'agrandissement recopie le tableau
+    private volatile RoomDays[] rooms = new RoomDays[64];
+
+    // Vérifie si le créneau [start, end) est libre pour la salle ce jour-là, tampon compris
+    public boolean isFree(int roomId, long epochDay, int startMinute, int endMinute) {
+        RoomDays days = room(roomId);
+        if (days == null) {
+            return true;
+        }
+        DaySchedule day = days.get(epochDay);
+        return day == null || day.isFree(startMinute, endMinute);
+    }
+
+    // Réserve le créneau si et seulement s'il est libre (vérification et ajout atomiques)
+    public boolean tryBook(int roomId, long epochDay, int startMinute, int endMinute) {
+        return roomOrCreate(roomId).getOrCreate(epochDay).tryBook(startMinute, endMinute);
+    }
+
+    // Libère un créneau précédemment réservé (annulation ou échec de la sauvegarde)
+    public void release(int roomId, long epochDay, int startMinute, int endMinute) {
+        RoomDays days = room(roomId);
+        if (days != null) {
+            DaySchedule day = days.get(epochDay);
+            if (day != null) {
+                day.remove(startMinute, endMinute);
+            }
+        }
+    }
+
+    // Créneaux réservés de la salle ce jour-là, triés par début : [début0, fin0, début1, fin1, ...]
+    public int[] bookings(int roomId, long epochDay) {
+        RoomDays days = room(roomId);
+        DaySchedule day = days == null ? null : days.get(epochDay);
+        return day == null ? NO_BOOKINGS : day.toArray();
+    }
+
+    // Oublie tous les créneaux d'une salle supprimée
+    public synchronized void removeRoom(int roomId) {
+        RoomDays[] current = rooms;
+        if (roomId >= 0 && roomId < current.length) {
+            current[roomId] = null;
+        }
+    }
+
+    // Nombre total de créneaux indexés
+    public int size() {
+        int size = 0;
+        for (RoomDays days : rooms) {
+            if (days != null) {
+                size += days.size();
+            }
+        }
+        return size;
+    }
+
+    private RoomDays room(int roomId) {
+        RoomDays[] current = rooms;
+        return roomId >= 0 && roomId < current.length ? current[roomId] : null;
+    }
+
+    private RoomDays roomOrCreate(int roomId) {
+        RoomDays days = room(roomId);
+        return days != null ? days : createRoom(roomId);
+    }
+
+    private synchronized RoomDays createRoom(int roomId) {
+        if (roomId < 0) {
+            throw new IllegalArgumentException("Id de salle invalide : " + roomId);
+        }
+        RoomDays[] current = rooms;
+        if (roomId >= current.length) {
+            current = Arrays.copyOf(current, Math.max(current.length * 2, roomId + 1));
+        }
+        if (current[roomId] == null) {
+            current[roomId] = new RoomDays();
+        }
+        // republier le tableau pour que les lecteurs voient la nouvelle salle
+        rooms = current;
+        return current[roomId];
+    }
+
+    //journées d'une salle, triées par jour epoch ; copie à l'écriture car les nouveaux jours sont rares
+    static final class RoomDays {
+
+        // jours et plannings publiés ensemble pour qu'un lecteur ne voie jamais l'un sans l'autre
+        private volatile Days current = new Days(new long[0], new DaySchedule[0]);
+
+        DaySchedule get(long epochDay) {
+            Days snapshot = current;
+            int position = Arrays.binarySearch(snapshot.days(), epochDay);
+            return position >= 0 ? snapshot.schedules()[position] : null;
+        }
+
+        synchronized DaySchedule getOrCreate(long epochDay) {
+            Days snapshot = current;
+            int position = Arrays.binarySearch(snapshot.days(), epochDay);
+            if (position >= 0) {
+                return snapshot.schedules()[position];
+            }
+            int insertion = -position - 1;
+            int length = snapshot.days().length;
+            long[] days = new long[length + 1];
+            DaySchedule[] schedules = new DaySchedule[length + 1];
+            System.arraycopy(snapshot.days(), 0, days, 0, insertion);
+            System.arraycopy(snapshot.days(), insertion, days, insertion + 1, length - insertion);
+            System.arraycopy(snapshot.schedules(), 0, schedules, 0, insertion);
+            System.arraycopy(snapshot.schedules(), insertion, schedules, insertion + 1, length - insertion);
+            days[insertion] = epochDay;
+            schedules[insertion] = new DaySchedule();
+            current = new Days(days, schedules);
+            return schedules[insertion];
+        }
+
+        int size() {
+            int size = 0;
+            for (DaySchedule day : current.schedules()) {
+                size += day.size();
+            }
+            return size;
+        }
+
+        private record Days(long[] days, DaySchedule[] schedules) {
+        }
+    }
+
+    //créneaux d'une journée, triés par heure de début et sans chevauchement
+    static final class DaySchedule {
+
+        private int[] starts = new int[4];
+        private int[] ends = new int[4];
+        private int size;
+
+        synchronized boolean isFree(int startMinute, int endMinute) {
+            // premier créneau qui commence au-delà de la fin demandée + tampon
+            int next = firstStartAtOrAfter(endMinute + BUFFER_MINUTES);
+            // les créneaux ne se chevauchent pas, donc seul le précédent peut entrer en conflit
+            return next == 0 || ends[next - 1] + BUFFER_MINUTES <= startMinute;
+        }
+
+        synchronized boolean tryBook(int startMinute, int endMinute) {
+            if (!isFree(startMinute, endMinute)) {
+                return false;
+            }
+            int position = firstStartAtOrAfter(startMinute);
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            System.arraycopy(starts, position, starts, position + 1, size - position);
+            System.arraycopy(ends, position, ends, position + 1, size - position);
+            starts[position] = startMinute;
+            ends[position] = endMinute;
+            size++;
+            return true;
+        }
+
+        synchronized void remove(int startMinute, int endMinute) {
+            int position = firstStartAtOrAfter(startMinute);
+            if (position < size && starts[position] == startMinute && ends[position] == endMinute) {
+                System.arraycopy(starts, position + 1, starts, position, size - position - 1);
+                System.arraycopy(ends, position + 1, ends, position, size - position - 1);
+                size--;
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized int[] toArray() {
+            int[] bookings = new int[size * 2];
+            for (int i = 0; i < size; i++) {
+                bookings[2 * i] = starts[i];
+                bookings[2 * i + 1] = ends[i];
+            }
+            return bookings;
+        }
+
+        // recherche dichotomique du premier créneau dont le début est >= minute
+        private int firstStartAtOrAfter(int minute) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < minute) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.MeetingType;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.RejectionReason;
+import com.planning.demomeetingplanner.Model.Reservation;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Model.UtilisationReport;
+import com.planning.demomeetingplanner.Model.UtilisationReport.GroupBy;
+import com.planning.demomeetingplanner.Model.UtilisationRow;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+//agrégats d'utilisation des salles, mis à jour à chaque réservation acceptée ou refusée : le rapport les lit sans
+//jamais parcourir les réservations, et ne touche donc pas aux tables du chemin de réservation
+//une journée ne garde que les salles réservées ou refusées ce jour-là : pour chacune, sa tranche de capacité au moment
+//de la réservation et, par type de réunion, réservations, minutes réservées, participants, places et refus
+//les agrégats sont ceux de ce processus : rechargés depuis les réservations au démarrage, les refus repartent de zéro ;
+//en mode cluster, le rapport est celui de l'instance : après son démarrage, elle ne compte que ses propres réservations
+//et refus
+@Service
+public class RoomUtilisation {
+
+    // tranches de capacité : borne supérieure incluse et libellé
+    static final int[] BAND_LIMITS = {6, 12, 20, Integer.MAX_VALUE};
+    static final String[] BANDS = {"1-6", "7-12", "13-20", "21+"};
+    // durée maximale d'un rapport, en jours
+    public static final int MAX_REPORT_DAYS = 366;
+
+    private static final String UNKNOWN = "inconnue";
+    private static final MeetingType[] TYPES = MeetingType.values();
+    private static final RejectionReason[] REASONS = RejectionReason.values();
+    // champs d'une cellule
+    private static final int BOOKINGS = 0;
+    private static final int MINUTES = 1;
+    private static final int PEOPLE = 2;
+    private static final int SEATS = 3;
+    private static final int REJECTIONS = 4;
+    private static final int FIELDS = 5;
+    // salles absentes du catalogue (refus UNKNOWN_ROOM)
+    private static final int UNKNOWN_ROOM = 0;
+
+    private final RepoReservation repoReservation;
+    private final RepoRoom repoRoom;
+    private final RoomCatalogIndex catalogIndex;
+
+    // jour epoch -> agrégats de la journée
+    private final ConcurrentSkipListMap<Long, DayUtilisation> days = new ConcurrentSkipListMap<>();
+    // journées conservées avant aujourd'hui
+    private final int retentionDays;
+
+    @Autowired
+    public RoomUtilisation(RepoReservation repoReservation, RepoRoom repoRoom, RoomCatalogIndex catalogIndex,
+                           @Value("${planner.utilisation.retention-days:400}") int retentionDays) {
+        this.repoReservation = repoReservation;
+        this.repoRoom = repoRoom;
+        this.catalogIndex = catalogIndex;
+        this.retentionDays = retentionDays;
+    }
+
+    //recharge les réservations de la période conservée : le seul parcours des réservations, au démarrage
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        // capacités lues en base : l'index du catalogue est chargé au même moment ; la capacité au moment de la
+        // réservation n'est pas en base, les réservations rechargées prennent la capacité actuelle
+        Map<Integer, Integer> capacities = new HashMap<>();
+        for (Room room : repoRoom.findAll()) {
+            capacities.put(room.getId(), room.getCapacity());
+        }
+        for (Reservation reservation : repoReservation.findByReservationDateGreaterThanEqual(
+                LocalDate.now().minusDays(retentionDays))) {
+            record(reservation.getRoomId(), PlanningTime.epochDay(reservation.getReservationDate()),
+                    PlanningTime.minuteOfDay(reservation.getEndTime()) - PlanningTime.minuteOfDay(reservation.getStartTime()),
+                    reservation.getNumberOfpeople(), reservation.getMeetingType(),
+                    capacities.getOrDefault(reservation.getRoomId(), 0));
+        }
+    }
+
+    // Compte une réservation enregistrée
+    public void booked(int roomId, long day, int start, int end, int people, MeetingType type) {
+        record(roomId, day, end - start, people, type, catalogIndex.capacity(roomId));
+    }
+
+    // Compte une demande refusée, et chacune de ses règles en échec
+    public void rejected(Integer roomId, long day, MeetingType type, int failedRules) {
+        DayUtilisation utilisation = day(day);
+        if (utilisation == null || type == null) {
+            return;
+        }
+        if (roomId != null && catalogIndex.contains(roomId)) {
+            utilisation.rejected(roomId, band(catalogIndex.capacity(roomId)), type.ordinal(), failedRules);
+        } else {
+            utilisation.rejected(UNKNOWN_ROOM, BANDS.length, type.ordinal(), failedRules);
+        }
+    }
+
+    //rapport entre deux dates incluses ; les salles et tranches sans réservation y figurent avec leurs minutes d'ouverture
+    public UtilisationReport report(LocalDate from, LocalDate to, GroupBy groupBy) {
+        // clé de tri du groupe (jour, salle, tranche ou type) -> totaux
+        SortedMap<Long, long[]> groups = new TreeMap<>();
+        long[] reasons = new long[REASONS.length];
+        long first = PlanningTime.epochDay(from);
+        long last = PlanningTime.epochDay(to);
+        int workingDays = 0;
+        for (long day = first; day <= last; day++) {
+            if (!PlanningTime.isWeekend(day)) {
+                workingDays++;
+            }
+            DayUtilisation utilisation = days.get(day);
+            if (utilisation == null) {
+                continue;
+            }
+            DayUtilisation.Snapshot snapshot = utilisation.snapshot();
+            for (Map.Entry<Long, int[]> room : snapshot.cells().entrySet()) {
+                int roomId = (int) (room.getKey() >>> 32);
+                int band = (int) (room.getKey() & 0xFFFFFFFFL);
+                int[] cells = room.getValue();
+                for (int type = 0; type < TYPES.length; type++) {
+                    int cell = type * FIELDS;
+                    if (cells[cell + BOOKINGS] == 0 && cells[cell + REJECTIONS] == 0) {
+                        continue;
+                    }
+                    long[] totals = groups.computeIfAbsent(key(groupBy, day, roomId, band, type), key -> new long[FIELDS + 1]);
+                    for (int field = 0; field < FIELDS; field++) {
+                        totals[field] += cells[cell + field];
+                    }
+                }
+            }
+            int[] rejections = snapshot.rejectionsByReason();
+            for (int i = 0; i < rejections.length; i++) {
+                reasons[i / TYPES.length] += rejections[i];
+            }
+        }
+
+        // minutes d'ouverture des salles du catalogue sur les jours ouvrés de la période, dans leur tranche actuelle
+        long parkMinutes = 0;
+        for (Integer roomId : catalogIndex.roomIds()) {
+            long open = Math.max(catalogIndex.closeMinute(roomId) - catalogIndex.openMinute(roomId), 0);
+            parkMinutes += open;
+            if (groupBy == GroupBy.ROOM || groupBy == GroupBy.BAND) {
+                groups.computeIfAbsent(key(groupBy, first, roomId, band(catalogIndex.capacity(roomId)), 0), key -> new long[FIELDS + 1])[FIELDS] += open * workingDays;
+            }
+        }
+        if (groupBy == GroupBy.DAY) {
+            for (long day = first; day <= last; day++) {
+                if (!PlanningTime.isWeekend(day)) {
+                    groups.computeIfAbsent(day, key -> new long[FIELDS + 1])[FIELDS] += parkMinutes;
+                }
+            }
+        } else if (groupBy == GroupBy.TYPE) {
+            // chaque type est rapporté à tout le parc
+            for (MeetingType type : TYPES) {
+                groups.computeIfAbsent((long) type.ordinal(), key -> new long[FIELDS + 1])[FIELDS] += parkMinutes * workingDays;
+            }
+        }
+
+        List<UtilisationRow> rows = new ArrayList<>(groups.size());
+        groups.forEach((key, totals) -> rows.add(new UtilisationRow(label(groupBy, key), totals[BOOKINGS], totals[MINUTES],
+                totals[FIELDS], totals[FIELDS] == 0 ? 0 : (double) totals[MINUTES] / totals[FIELDS],
+                totals[PEOPLE], totals[SEATS], totals[SEATS] == 0 ? 0 : (double) totals[PEOPLE] / totals[SEATS],
+                totals[REJECTIONS])));
+        Map<String, Long> rejectionsByReason = new LinkedHashMap<>();
+        for (RejectionReason reason : REASONS) {
+            rejectionsByReason.put(reason.tag(), reasons[reason.ordinal()]);
+        }
+        return new UtilisationReport(from, to, groupBy, rows, rejectionsByReason);
+    }
+
+    private void record(int roomId, long day, int minutes, int people, MeetingType type, int seats) {
+        DayUtilisation utilisation = day(day);
+        if (utilisation != null && type != null) {
+            utilisation.booked(roomId, band(seats), type.ordinal(), minutes, people, seats);
+        }
+    }
+
+    // agrégats d'une journée, null si elle est plus ancienne que la période conservée
+    private DayUtilisation day(long day) {
+        long oldest = LocalDate.now().toEpochDay() - retentionDays;
+        if (day < oldest) {
+            return null;
+        }
+        DayUtilisation utilisation = days.get(day);
+        if (utilisation == null) {
+            utilisation = days.computeIfAbsent(day, key -> new DayUtilisation());
+            // nouvelle journée : on oublie celles qui sortent de la période conservée
+            days.headMap(oldest).clear();
+        }
+        return utilisation;
+    }
+
+    // clé de tri d'un groupe : jour epoch, roomId (0 pour une salle inconnue), rang de tranche ou rang de type
+    private static long key(GroupBy groupBy, long day, int roomId, int band, int type) {
+        return switch (groupBy) {
+            case DAY -> day;
+            case ROOM -> roomId;
+            case BAND -> band;
+            case TYPE -> type;
+        };
+    }
+
+    private static String label(GroupBy groupBy, long key) {
+        return switch (groupBy) {
+            case DAY -> PlanningTime.toLocalDate(key).toString();
+            case ROOM -> key == 0 ? UNKNOWN : String.valueOf(key);
+            case BAND -> key < BANDS.length ? BANDS[(int) key] : UNKNOWN;
+            case TYPE -> TYPES[(int) key].name();
+        };
+    }
+
+    // rang de la tranche de capacité ; BANDS.length pour une salle supprimée ou inconnue
+    static int band(int capacity) {
+        if (capacity <= 0) {
+            return BANDS.length;
+        }
+        int band = 0;
+        while (capacity > BAND_LIMITS[band]) {
+            band++;
+        }
+        return band;
+    }
+
+    //agrégats d'une journée, seulement pour les salles qui y ont une réservation ou un refus :
+    //(roomId << 32 | tranche) -> cellules type * FIELDS + champ, et refus par (motif, type)
+    //une salle dont la capacité change dans la journée a une entrée par tranche
+    private static final class DayUtilisation {
+
+        private final Map<Long, int[]> cells = new HashMap<>();
+        private final int[] rejectionsByReason = new int[REASONS.length * TYPES.length];
+
+        synchronized void booked(int roomId, int band, int type, int minutes, int people, int seats) {
+            int[] room = room(roomId, band);
+            int cell = type * FIELDS;
+            room[cell + BOOKINGS]++;
+            room[cell + MINUTES] += minutes;
+            room[cell + PEOPLE] += people;
+            room[cell + SEATS] += seats;
+        }
+
+        synchronized void rejected(int roomId, int band, int type, int failedRules) {
+            room(roomId, band)[type * FIELDS + REJECTIONS]++;
+            for (int rules = failedRules; rules != 0; rules &= rules - 1) {
+                rejectionsByReason[Integer.numberOfTrailingZeros(rules) * TYPES.length + type]++;
+            }
+        }
+
+        synchronized Snapshot snapshot() {
+            Map<Long, int[]> copy = new HashMap<>(cells.size() * 2);
+            cells.forEach((room, fields) -> copy.put(room, fields.clone()));
+            return new Snapshot(copy, rejectionsByReason.clone());
+        }
+
+        private int[] room(int roomId, int band) {
+            return cells.computeIfAbsent((long) roomId << 32 | band, key -> new int[TYPES.length * FIELDS]);
+        }
+
+        record Snapshot(Map<Long, int[]> cells, int[] rejectionsByReason) {
+        }
+    }
+}
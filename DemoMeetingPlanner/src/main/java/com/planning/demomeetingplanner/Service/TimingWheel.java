@@ -0,0 +1,149 @@
+package com.planning.demomeetingplanner.Service;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+//roue temporelle hiérarchique (4 niveaux de 64 cases, 1 tic = 1 minute, soit environ 32 ans) :
+//ajout et expiration en O(1), une échéance descend d'un niveau quand la roue du dessous atteint sa case
+//les échéances sont stockées dans des tableaux parallèles chaînés par indice, sans objet par échéance
+final class TimingWheel {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int LEVELS = 4;
+    private static final int NONE = -1;
+
+    // tête de la liste chaînée de chaque case, niveau par niveau
+    private final int[] heads = new int[LEVELS * SLOTS];
+    private long[] deadlines = new long[1024];
+    private long[] payloads = new long[1024];
+    private int[] next = new int[1024];
+    // cellules libérées, réutilisées avant d'agrandir les tableaux
+    private int free = NONE;
+    private int used;
+    private int size;
+    private long now;
+
+    TimingWheel(long now) {
+        this.now = now;
+        Arrays.fill(heads, NONE);
+    }
+
+    // Dernier tic atteint
+    synchronized long now() {
+        return now;
+    }
+
+    // Nombre d'échéances en attente
+    synchronized int size() {
+        return size;
+    }
+
+    // Programme une échéance future ; renvoie false si elle est déjà atteinte (à traiter par l'appelant)
+    synchronized boolean add(long deadline, long payload) {
+        if (deadline <= now) {
+            return false;
+        }
+        int cell = allocate();
+        deadlines[cell] = deadline;
+        payloads[cell] = payload;
+        link(cell);
+        size++;
+        return true;
+    }
+
+    //avance la roue jusqu'au tic donné et renvoie les échéances atteintes : [échéance0, donnée0, échéance1, ...]
+    synchronized long[] advanceTo(long tick) {
+        long[] expired = new long[16];
+        int count = 0;
+        while (now < tick) {
+            now++;
+            // faire descendre les cases des niveaux supérieurs dont le tour est venu, du plus haut au plus bas
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((now & ((1L << (BITS * level)) - 1)) == 0) {
+                    int slot = level * SLOTS + (int) ((now >>> (BITS * level)) & (SLOTS - 1));
+                    int cell = heads[slot];
+                    heads[slot] = NONE;
+                    while (cell != NONE) {
+                        int following = next[cell];
+                        link(cell);
+                        cell = following;
+                    }
+                }
+            }
+            int slot = (int) (now & (SLOTS - 1));
+            int cell = heads[slot];
+            heads[slot] = NONE;
+            while (cell != NONE) {
+                int following = next[cell];
+                if (count + 2 > expired.length) {
+                    expired = Arrays.copyOf(expired, expired.length * 2);
+                }
+                expired[count++] = deadlines[cell];
+                expired[count++] = payloads[cell];
+                release(cell);
+                size--;
+                cell = following;
+            }
+        }
+        return Arrays.copyOf(expired, count);
+    }
+
+    // Annule les échéances dont la donnée vérifie le filtre, à tous les niveaux ; renvoie le nombre d'annulations
+    synchronized int removeIf(LongPredicate payload) {
+        int removed = 0;
+        for (int slot = 0; slot < heads.length; slot++) {
+            int previous = NONE;
+            int cell = heads[slot];
+            while (cell != NONE) {
+                int following = next[cell];
+                if (payload.test(payloads[cell])) {
+                    if (previous == NONE) {
+                        heads[slot] = following;
+                    } else {
+                        next[previous] = following;
+                    }
+                    release(cell);
+                    size--;
+                    removed++;
+                } else {
+                    previous = cell;
+                }
+                cell = following;
+            }
+        }
+        return removed;
+    }
+
+    // range la cellule au niveau le plus bas qui couvre son délai ; une échéance atteinte va dans la case courante
+    private void link(int cell) {
+        long delay = Math.max(deadlines[cell] - now, 0);
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        long position = delay == 0 ? now : deadlines[cell];
+        int slot = level * SLOTS + (int) ((position >>> (BITS * level)) & (SLOTS - 1));
+        next[cell] = heads[slot];
+        heads[slot] = cell;
+    }
+
+    private int allocate() {
+        if (free != NONE) {
+            int cell = free;
+            free = next[cell];
+            return cell;
+        }
+        if (used == deadlines.length) {
+            deadlines = Arrays.copyOf(deadlines, used * 2);
+            payloads = Arrays.copyOf(payloads, used * 2);
+            next = Arrays.copyOf(next, used * 2);
+        }
+        return used++;
+    }
+
+    private void release(int cell) {
+        next[cell] = free;
+        free = cell;
+    }
+}
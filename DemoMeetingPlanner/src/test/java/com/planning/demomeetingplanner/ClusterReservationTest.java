@@ -0,0 +1,272 @@
+package com.planning.demomeetingplanner;
+
+import com.planning.demomeetingplanner.Controller.ManageController;
+import com.planning.demomeetingplanner.Model.Equipment;
+import com.planning.demomeetingplanner.Model.EquipmentType;
+import com.planning.demomeetingplanner.Model.Meeting;
+import com.planning.demomeetingplanner.Model.MeetingType;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.RejectionReason;
+import com.planning.demomeetingplanner.Model.Reservation;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Repository.RepoEquipment;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import com.planning.demomeetingplanner.Service.ClusterRefresh;
+import com.planning.demomeetingplanner.Service.ReservationRules;
+import com.planning.demomeetingplanner.Service.ReservationService;
+import com.planning.demomeetingplanner.Service.RoomCatalogIndex;
+import com.planning.demomeetingplanner.Service.RoomScheduleIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// plusieurs instances (contextes Spring) en mode cluster sur une même base H2 embarquée :
+// aucune salle ne doit être réservée deux fois sur le même créneau, quelle que soit l'instance qui réserve,
+// une salle demandée au même moment par deux instances pour des créneaux distincts est réservée par les deux,
+// et une salle ajoutée, modifiée ou réservée sur une instance est vue par les autres
+class ClusterReservationTest {
+
+	private static final int INSTANCES = 3;
+	private static final int ROOMS = 30;
+	private static final int THREADS_PER_INSTANCE = 4;
+	private static final int REQUESTS_PER_THREAD = 150;
+	private static final Date CLUSTER_DAY = Date.valueOf("2030-06-13");
+	private static final Date SYNC_DAY = Date.valueOf("2030-06-14");
+
+	private final List<ConfigurableApplicationContext> instances = new ArrayList<>();
+
+	@AfterEach
+	void stopInstances() {
+		instances.forEach(ConfigurableApplicationContext::close);
+	}
+
+	@Test
+	void instancesSharingOneDatabaseNeverDoubleBook() throws Exception {
+		ConfigurableApplicationContext first = startInstance("cluster-test");
+		seedRooms(first);
+		for (int i = 1; i < INSTANCES; i++) {
+			startInstance("cluster-test");
+		}
+
+		int[] cluster = run(instances, CLUSTER_DAY, THREADS_PER_INSTANCE);
+
+		// chaque instance a pu réserver : elles ne se bloquent pas les unes les autres
+		for (int i = 0; i < INSTANCES; i++) {
+			assertTrue(cluster[i] > 0, "l'instance " + i + " n'a rien réservé");
+		}
+
+		// la base fait foi : trier les réservations de chaque salle et vérifier le tampon entre deux réunions
+		Map<String, List<Reservation>> byRoomAndDay = new HashMap<>();
+		for (Reservation reservation : first.getBean(RepoReservation.class).findAll()) {
+			byRoomAndDay.computeIfAbsent(reservation.getRoomId() + "/" + reservation.getReservationDate(),
+					key -> new ArrayList<>()).add(reservation);
+		}
+		int bookings = 0;
+		for (List<Reservation> reservations : byRoomAndDay.values()) {
+			reservations.sort(Comparator.comparing(Reservation::getStartTime));
+			for (int i = 1; i < reservations.size(); i++) {
+				LocalTime previousEnd = reservations.get(i - 1).getEndTime();
+				assertTrue(!previousEnd.plusMinutes(RoomScheduleIndex.BUFFER_MINUTES).isAfter(reservations.get(i).getStartTime()),
+						"deux réservations se chevauchent dans la salle " + reservations.get(i).getRoomId());
+			}
+			bookings += reservations.size();
+		}
+		assertEquals(Arrays.stream(cluster).sum(), bookings, "chaque réservation acceptée doit être en base, une seule fois");
+	}
+
+	@Test
+	void nonOverlappingRequestsForOneRoomAreAllAccepted() throws Exception {
+		ConfigurableApplicationContext first = startInstance("cluster-claims");
+		seedRooms(first);
+		startInstance("cluster-claims");
+		Integer roomId = first.getBean(RepoRoom.class).findAll().get(0).getId();
+
+		// chaque instance réserve la même salle, une semaine chacune : la salle est souvent prise par l'autre
+		// instance au même moment, mais aucun créneau ne se chevauche, aucune demande ne doit être refusée
+		// (H2 n'a pas SKIP LOCKED et attend le verrou : la salle sautée puis redemandée est vue dans RoomClaimsTest)
+		ExecutorService executor = Executors.newFixedThreadPool(instances.size());
+		List<Future<Integer>> futures = new ArrayList<>();
+		for (int c = 0; c < instances.size(); c++) {
+			ReservationService service = instances.get(c).getBean(ReservationService.class);
+			LocalDate monday = CLUSTER_DAY.toLocalDate().plusWeeks(c + 1).with(DayOfWeek.MONDAY);
+			futures.add(executor.submit(() -> {
+				int refused = 0;
+				for (int d = 0; d < 5; d++) {
+					// réunions de 30 minutes séparées du tampon entre deux réunions
+					for (int startMinute = 8 * 60; startMinute + 30 <= 20 * 60; startMinute += 30 + RoomScheduleIndex.BUFFER_MINUTES) {
+						Room room = new Room();
+						room.setId(roomId);
+						if (service.reserveRoom(room, meeting(Date.valueOf(monday.plusDays(d)), startMinute, startMinute + 30))
+								!= ReservationRules.ACCEPTED) {
+							refused++;
+						}
+					}
+				}
+				return refused;
+			}));
+		}
+		for (Future<Integer> future : futures) {
+			assertEquals(0, future.get());
+		}
+		executor.shutdown();
+	}
+
+	@Test
+	void roomAddedOnOneInstanceIsBookedOnAnother() {
+		ConfigurableApplicationContext first = startInstance("cluster-sync");
+		ConfigurableApplicationContext second = startInstance("cluster-sync");
+
+		Room room = new Room();
+		room.setName("Salle ajoutée");
+		room.setCapacity(10);
+		room.getEquipment().add(equipment(EquipmentType.NEANT));
+		assertTrue(first.getBean(ManageController.class).addRoom(room));
+
+		// inconnue de l'index de la seconde instance : cherchée en base au lieu d'être refusée
+		Room target = new Room();
+		target.setId(room.getId());
+		assertEquals(ReservationRules.ACCEPTED,
+				second.getBean(ReservationService.class).reserveRoom(target, meeting(SYNC_DAY, 9 * 60, 10 * 60)));
+		second.getBean(ClusterRefresh.class).refresh();
+
+		// la première instance voit la réservation à la relecture suivante, sans attendre un refus en base
+		long day = PlanningTime.epochDay(SYNC_DAY);
+		first.getBean(ClusterRefresh.class).refresh();
+		assertFalse(first.getBean(RoomScheduleIndex.class).isFree(room.getId(), day, 9 * 60, 10 * 60));
+		assertEquals(RejectionReason.SLOT_CONFLICT.mask(),
+				first.getBean(ReservationService.class).reserveRoom(target, meeting(SYNC_DAY, 9 * 60, 10 * 60)));
+
+		// une modification faite sur la première instance arrive dans le catalogue de la seconde
+		Room updated = new Room();
+		updated.setName("Salle agrandie");
+		updated.setCapacity(24);
+		updated.setAvailability(true);
+		updated.getEquipment().add(equipment(EquipmentType.ECRAN));
+		assertEquals(HttpStatus.OK, inRequest(first,
+				controller -> controller.updateMeetingRoom(updated, room.getId())).getStatusCode());
+		second.getBean(ClusterRefresh.class).refresh();
+		assertEquals(24, second.getBean(RoomCatalogIndex.class).capacity(room.getId()));
+
+		// une suppression aussi
+		assertEquals(HttpStatus.OK, inRequest(first,
+				controller -> controller.deleteMeetingRoom(room.getId())).getStatusCode());
+		second.getBean(ClusterRefresh.class).refresh();
+		assertFalse(second.getBean(RoomCatalogIndex.class).contains(room.getId()));
+	}
+
+	private ConfigurableApplicationContext startInstance(String database) {
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoMeetingPlannerApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("memory")
+				// arguments de ligne de commande : ils passent devant application-memory.properties, au contraire de properties()
+				.run("--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;MODE=MySQL;LOCK_TIMEOUT=10000",
+						// la première instance crée le schéma, les suivantes ne doivent pas le supprimer
+						"--spring.jpa.hibernate.ddl-auto=update",
+						"--planner.journal.enabled=false",
+						"--planner.cluster.enabled=true",
+						// relectures déclenchées par le test
+						"--planner.cluster.refresh=3600000",
+						"--spring.jmx.enabled=false");
+		instances.add(context);
+		return context;
+	}
+
+	//dans une transaction, comme la session ouverte pendant une requête HTTP (open-in-view) : les équipements
+	//de la salle sont chargés à la demande
+	private static ResponseEntity<?> inRequest(ConfigurableApplicationContext context,
+											   Function<ManageController, ResponseEntity<?>> call) {
+		return context.getBean(TransactionTemplate.class).execute(status -> call.apply(context.getBean(ManageController.class)));
+	}
+
+	private static void seedRooms(ConfigurableApplicationContext context) {
+		RepoRoom repoRoom = context.getBean(RepoRoom.class);
+		RepoEquipment repoEquipment = context.getBean(RepoEquipment.class);
+		for (int i = 0; i < ROOMS; i++) {
+			Room room = new Room();
+			room.setName("Salle " + i);
+			room.setCapacity(10);
+			room.setAvailability(true);
+			room.setOpenTime(Time.valueOf("08:00:00"));
+			room.setCloseTime(Time.valueOf("20:00:00"));
+			repoRoom.save(room);
+			Equipment equipment = equipment(EquipmentType.NEANT);
+			equipment.setRoom(room);
+			repoEquipment.save(equipment);
+		}
+		// l'index du catalogue a été construit au démarrage, avant l'ajout des salles
+		context.getBean(RoomCatalogIndex.class).rebuild();
+	}
+
+	//toutes les instances réservent en même temps les mêmes salles ; renvoie le nombre de réservations acceptées par instance
+	private static int[] run(List<ConfigurableApplicationContext> contexts, Date day, int threadsPerInstance) throws Exception {
+		List<Integer> roomIds = contexts.get(0).getBean(RepoRoom.class).findAll().stream().map(Room::getId).toList();
+		AtomicInteger[] accepted = new AtomicInteger[contexts.size()];
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(contexts.size() * threadsPerInstance);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int c = 0; c < contexts.size(); c++) {
+			ReservationService service = contexts.get(c).getBean(ReservationService.class);
+			AtomicInteger count = accepted[c] = new AtomicInteger();
+			for (int t = 0; t < threadsPerInstance; t++) {
+				long seed = c * 100L + t;
+				futures.add(executor.submit(() -> {
+					Random random = new Random(seed);
+					start.await();
+					for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+						Room room = new Room();
+						room.setId(roomIds.get(random.nextInt(roomIds.size())));
+						int startMinute = 8 * 60 + random.nextInt(10 * 4) * 15;
+						int endMinute = startMinute + 30 + random.nextInt(3) * 15;
+						if (service.reserveRoom(room, meeting(day, startMinute, endMinute)) == ReservationRules.ACCEPTED) {
+							count.incrementAndGet();
+						}
+					}
+					return null;
+				}));
+			}
+		}
+
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+		return Arrays.stream(accepted).mapToInt(AtomicInteger::get).toArray();
+	}
+
+	private static Equipment equipment(EquipmentType type) {
+		Equipment equipment = new Equipment();
+		equipment.setEquipmentType(type);
+		return equipment;
+	}
+
+	private static Meeting meeting(Date day, int startMinute, int endMinute) {
+		Meeting meeting = new Meeting();
+		meeting.setMeetingDate(day);
+		meeting.setStartTime(Time.valueOf(LocalTime.ofSecondOfDay(startMinute * 60L)));
+		meeting.setEndTime(Time.valueOf(LocalTime.ofSecondOfDay(endMinute * 60L)));
+		meeting.setNumberOfpeople(5);
+		meeting.setMeetingType(MeetingType.RS);
+		return meeting;
+	}
+}
@@ -2,8 +2,11 @@ package com.planning.demomeetingplanner;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
-@SpringBootTest
+// profil memory : H2 embarquée, le test ne dépend plus d'un serveur MySQL
+@SpringBootTest(properties = "planner.journal.directory=target/journal-test")
+@ActiveProfiles("memory")
 class DemoMeetingPlannerApplicationTests {
 
 	@Test
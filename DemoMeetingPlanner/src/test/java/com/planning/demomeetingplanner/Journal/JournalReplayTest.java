@@ -0,0 +1,133 @@
+package com.planning.demomeetingplanner.Journal;
+
+import com.planning.demomeetingplanner.DemoMeetingPlannerApplication;
+import com.planning.demomeetingplanner.Model.Equipment;
+import com.planning.demomeetingplanner.Model.EquipmentType;
+import com.planning.demomeetingplanner.Model.ImportReport;
+import com.planning.demomeetingplanner.Model.Meeting;
+import com.planning.demomeetingplanner.Model.MeetingType;
+import com.planning.demomeetingplanner.Model.RejectionReason;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Repository.RepoEquipment;
+import com.planning.demomeetingplanner.Repository.RepoMeeting;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import com.planning.demomeetingplanner.Service.MeetingIngestionService;
+import com.planning.demomeetingplanner.Service.ReservationRules;
+import com.planning.demomeetingplanner.Service.ReservationService;
+import com.planning.demomeetingplanner.Service.RoomCatalogIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// écritures JPA et JDBC journalisées par une première instance, rejouées au démarrage d'une seconde sur une base vide ;
+// une écriture que le journal refuse n'est pas validée en base
+class JournalReplayTest {
+
+	private static final LocalDate DAY = LocalDate.of(2030, 6, 12);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void restartReplaysCommittedWrites() throws Exception {
+		int roomId;
+		long version;
+		try (ConfigurableApplicationContext first = start("journal-replay-first")) {
+			Room room = seedRoom(first);
+			roomId = room.getId();
+			assertEquals(ReservationRules.ACCEPTED, first.getBean(ReservationService.class).reserveRoom(room, meeting()));
+			// insertion JDBC groupée, hors JPA
+			assertEquals(1, first.getBean(MeetingIngestionService.class)
+					.ingestCsv(new StringReader("Point équipe,2030-06-13,10:00,11:00,6,RS\n")).imported());
+			// version incrémentée par la réservation (OPTIMISTIC_FORCE_INCREMENT), juste avant le commit
+			version = first.getBean(RepoRoom.class).findById(roomId).orElseThrow().getVersion();
+		}
+
+		// nouvelle base en mémoire, vide : tout ce qu'elle contient vient du journal
+		try (ConfigurableApplicationContext second = start("journal-replay-second")) {
+			Room replayed = second.getBean(RepoRoom.class).findById(roomId).orElseThrow();
+			assertFalse(replayed.isAvailability());
+			assertEquals(version, replayed.getVersion());
+			assertEquals(1, second.getBean(RepoEquipment.class).count());
+			assertEquals(1, second.getBean(RepoReservation.class)
+					.findByRoomIdAndReservationDateBetweenOrderByReservationDateAscStartTimeAsc(roomId, DAY, DAY).size());
+			assertEquals(1, second.getBean(RepoMeeting.class).count());
+			// le créneau rejoué reste pris
+			assertEquals(RejectionReason.SLOT_CONFLICT.mask(),
+					second.getBean(ReservationService.class).reserveRoom(replayed, meeting()));
+		}
+	}
+
+	// arguments de ligne de commande : ils passent devant application-memory.properties, au contraire de properties()
+	@Test
+	void journalFailureRollsBackTheTransaction() throws Exception {
+		try (ConfigurableApplicationContext context = start("journal-failure")) {
+			Room room = seedRoom(context);
+			// journal fermé : chaque ajout échoue
+			context.getBean(Journal.class).close();
+
+			assertThrows(RuntimeException.class, () -> context.getBean(ReservationService.class).reserveRoom(room, meeting()));
+			assertEquals(0, context.getBean(RepoReservation.class)
+					.findByRoomIdAndReservationDateBetweenOrderByReservationDateAscStartTimeAsc(room.getId(), DAY, DAY).size());
+			assertTrue(context.getBean(RepoRoom.class).findById(room.getId()).orElseThrow().isAvailability());
+			// insertion JDBC groupée : le lot refusé n'est pas en base
+			ImportReport report = context.getBean(MeetingIngestionService.class)
+					.ingestCsv(new StringReader("Point équipe,2030-06-13,10:00,11:00,6,RS\n"));
+			assertEquals(0, report.imported());
+			assertEquals(1, report.errors().size());
+			assertEquals(0, context.getBean(RepoMeeting.class).count());
+		}
+	}
+
+	private ConfigurableApplicationContext start(String database) {
+		return new SpringApplicationBuilder(DemoMeetingPlannerApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("memory")
+				.run("--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;MODE=MySQL",
+						"--planner.journal.enabled=true",
+						"--planner.journal.directory=" + directory,
+						"--spring.jmx.enabled=false");
+	}
+
+	private static Room seedRoom(ConfigurableApplicationContext context) {
+		Room room = new Room();
+		room.setName("Salle journal");
+		room.setCapacity(10);
+		room.setAvailability(true);
+		room.setOpenTime(Time.valueOf("08:00:00"));
+		room.setCloseTime(Time.valueOf("20:00:00"));
+		context.getBean(RepoRoom.class).save(room);
+		Equipment equipment = new Equipment();
+		equipment.setEquipmentType(EquipmentType.NEANT);
+		equipment.setRoom(room);
+		context.getBean(RepoEquipment.class).save(equipment);
+		room.getEquipment().add(equipment);
+		context.getBean(RoomCatalogIndex.class).register(room);
+		return room;
+	}
+
+	private static Meeting meeting() {
+		Meeting meeting = new Meeting();
+		meeting.setName("Point d'équipe");
+		meeting.setMeetingDate(Date.valueOf(DAY));
+		meeting.setStartTime(Time.valueOf("09:00:00"));
+		meeting.setEndTime(Time.valueOf("10:00:00"));
+		meeting.setNumberOfpeople(5);
+		meeting.setMeetingType(MeetingType.RS);
+		return meeting;
+	}
+}
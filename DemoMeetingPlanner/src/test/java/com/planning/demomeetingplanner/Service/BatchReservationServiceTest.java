@@ -0,0 +1,172 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Journal.JournaledJdbc;
+import com.planning.demomeetingplanner.Model.BatchReservationResult;
+import com.planning.demomeetingplanner.Model.BatchReservationResult.Mode;
+import com.planning.demomeetingplanner.Model.BatchReservationResult.State;
+import com.planning.demomeetingplanner.Model.Equipment;
+import com.planning.demomeetingplanner.Model.EquipmentType;
+import com.planning.demomeetingplanner.Model.Meeting;
+import com.planning.demomeetingplanner.Model.MeetingType;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.RejectionReason;
+import com.planning.demomeetingplanner.Model.Reservation;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Repository.RepoMeeting;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// lots de réservations sur les index réels et des dépôts simulés : conflit entre deux demandes d'un même lot,
+// tout ou rien annulé par un refus ou par l'échec de l'écriture, conflit vu seulement par la base en mode cluster
+class BatchReservationServiceTest {
+
+	private static final int ROOM = 1;
+	private static final int OTHER_ROOM = 2;
+	private static final int UNKNOWN_ROOM = 99;
+	private static final Date MEETING_DATE = Date.valueOf("2024-06-12");
+
+	private final RepoRoom repoRoom = mock(RepoRoom.class);
+	private final RepoReservation repoReservation = mock(RepoReservation.class);
+	private final JournaledJdbc journaledJdbc = mock(JournaledJdbc.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private final RoomScheduleIndex scheduleIndex = new RoomScheduleIndex();
+	private final RoomCatalogIndex catalogIndex = new RoomCatalogIndex(repoRoom, false);
+
+	@Test
+	void conflictInsideOneBatchRejectsTheLaterRequest() {
+		BatchReservationService service = service(false);
+
+		BatchReservationResult result = service.reserveAll(List.of(request(ROOM, 9, 0, 10, 0),
+				request(ROOM, 9, 30, 10, 30), request(OTHER_ROOM, 9, 0, 10, 0)), Mode.BEST_EFFORT);
+
+		assertEquals(2, result.accepted());
+		assertEquals(State.ACCEPTED, result.items().get(0).state());
+		assertEquals(State.REJECTED, result.items().get(1).state());
+		assertEquals(RejectionReason.SLOT_CONFLICT, result.items().get(1).rejections().get(0).reason());
+		assertEquals(State.ACCEPTED, result.items().get(2).state());
+		assertFalse(isFree(ROOM, 9, 10));
+		// le créneau refusé n'a rien laissé dans l'index
+		assertTrue(isFree(ROOM, 11, 12));
+	}
+
+	@Test
+	void allOrNothingRejectionCancelsTheWholeBatch() {
+		BatchReservationService service = service(false);
+
+		BatchReservationResult result = service.reserveAll(List.of(request(ROOM, 9, 0, 10, 0),
+				request(UNKNOWN_ROOM, 9, 0, 10, 0)), Mode.ALL_OR_NOTHING);
+
+		assertEquals(0, result.accepted());
+		assertEquals(State.CANCELLED, result.items().get(0).state());
+		assertEquals(RejectionReason.UNKNOWN_ROOM, result.items().get(1).rejections().get(0).reason());
+		assertTrue(isFree(ROOM, 9, 10));
+		verify(journaledJdbc, never()).insertAll(any(), any(), any(), any());
+	}
+
+	@Test
+	void allOrNothingWriteFailureRollsBackAndFreesTheSlots() {
+		when(journaledJdbc.insertAll(any(), any(), any(), any())).thenThrow(new DataIntegrityViolationException("écriture refusée"));
+		BatchReservationService service = service(false);
+
+		assertThrows(DataIntegrityViolationException.class, () -> service.reserveAll(List.of(request(ROOM, 9, 0, 10, 0),
+				request(OTHER_ROOM, 9, 0, 10, 0)), Mode.ALL_OR_NOTHING));
+
+		verify(transactionManager).rollback(any());
+		assertTrue(isFree(ROOM, 9, 10));
+		assertTrue(isFree(OTHER_ROOM, 9, 10));
+	}
+
+	@Test
+	void conflictSeenOnlyByTheDatabaseReloadsTheDay() {
+		// une autre instance a réservé 9h-10h, cette instance ne l'a pas encore relu
+		when(repoReservation.existsOverlap(anyInt(), any(), any(), any())).thenReturn(true);
+		when(repoReservation.findByRoomIdAndReservationDateBetweenOrderByReservationDateAscStartTimeAsc(anyInt(), any(), any()))
+				.thenReturn(List.of(Reservation.of(ROOM, meeting(9, 0, 10, 0), day(), 9 * 60, 10 * 60)));
+		BatchReservationService service = service(true);
+
+		BatchReservationResult result = service.reserveAll(List.of(request(ROOM, 9, 0, 10, 0)), Mode.BEST_EFFORT);
+
+		assertEquals(RejectionReason.SLOT_CONFLICT, result.items().get(0).rejections().get(0).reason());
+		// rechargé : la demande suivante est refusée par l'index, sans passer par la base
+		assertFalse(isFree(ROOM, 9, 10));
+	}
+
+	@SuppressWarnings("unchecked")
+	private BatchReservationService service(boolean clustered) {
+		when(repoRoom.findLockedById(anyInt())).thenAnswer(invocation -> Optional.of(room(invocation.getArgument(0))));
+		when(repoRoom.claimAllByIdIn(any())).thenAnswer(invocation -> ((Collection<Integer>) invocation.getArgument(0))
+				.stream().map(BatchReservationServiceTest::room).toList());
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		catalogIndex.register(room(ROOM));
+		catalogIndex.register(room(OTHER_ROOM));
+		RoomClaims roomClaims = new RoomClaims(clustered, 0, repoRoom, mock(RepoMeeting.class), repoReservation);
+		ClusterRefresh clusterRefresh = new ClusterRefresh(roomClaims, repoRoom, repoReservation, catalogIndex,
+				mock(RoomCatalogCache.class), scheduleIndex, mock(RoomReleaseScheduler.class));
+		return new BatchReservationService(new ReservationRules(scheduleIndex, catalogIndex), scheduleIndex,
+				new RoomLocks(), roomClaims, mock(RoomCatalogCache.class), repoRoom, repoReservation, journaledJdbc,
+				new TransactionTemplate(transactionManager), mock(RoomReleaseScheduler.class), mock(RoomChangeFeed.class),
+				mock(RoomUtilisation.class), mock(ReservationMetrics.class), clusterRefresh);
+	}
+
+	private boolean isFree(int roomId, int startHour, int endHour) {
+		return scheduleIndex.isFree(roomId, day(), startHour * 60, endHour * 60);
+	}
+
+	private static long day() {
+		return PlanningTime.epochDay(MEETING_DATE);
+	}
+
+	private static ReservationRequestService request(int roomId, int startHour, int startMinute, int endHour, int endMinute) {
+		ReservationRequestService request = new ReservationRequestService();
+		Room room = new Room();
+		room.setId(roomId);
+		request.setRoom(room);
+		request.setMeeting(meeting(startHour, startMinute, endHour, endMinute));
+		return request;
+	}
+
+	private static Room room(int roomId) {
+		Room room = new Room();
+		room.setId(roomId);
+		room.setCapacity(10);
+		room.setAvailability(true);
+		Equipment equipment = new Equipment();
+		equipment.setEquipmentType(EquipmentType.NEANT);
+		room.getEquipment().add(equipment);
+		return room;
+	}
+
+	private static Meeting meeting(int startHour, int startMinute, int endHour, int endMinute) {
+		Meeting meeting = new Meeting();
+		meeting.setName("Point d'équipe");
+		meeting.setMeetingDate(MEETING_DATE);
+		meeting.setStartTime(Time.valueOf(LocalTime.of(startHour, startMinute)));
+		meeting.setEndTime(Time.valueOf(LocalTime.of(endHour, endMinute)));
+		meeting.setNumberOfpeople(5);
+		meeting.setMeetingType(MeetingType.RS);
+		return meeting;
+	}
+}
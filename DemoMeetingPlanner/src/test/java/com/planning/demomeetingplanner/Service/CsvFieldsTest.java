@@ -0,0 +1,28 @@
+package com.planning.demomeetingplanner.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvFieldsTest {
+
+	@Test
+	void quotedFieldKeepsItsCommasAndQuotes() {
+		assertEquals(List.of("Point, équipe", "2024-06-12", "10:00", "11:00", "6", "RS"),
+				CsvFields.split("\"Point, équipe\",2024-06-12,10:00,11:00,6,RS"));
+		assertEquals(List.of("Salle \"A\"", "12", ""), CsvFields.split("\"Salle \"\"A\"\"\",12,"));
+	}
+
+	@Test
+	void unquotedLineSplitsOnEveryComma() {
+		assertEquals(List.of("Point équipe", "2024-06-12", "", "RS"), CsvFields.split("Point équipe,2024-06-12,,RS"));
+	}
+
+	@Test
+	void unterminatedQuoteIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> CsvFields.split("\"Point, équipe,2024-06-12"));
+	}
+}
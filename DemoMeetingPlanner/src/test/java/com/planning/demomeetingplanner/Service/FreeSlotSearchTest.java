@@ -0,0 +1,132 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.Equipment;
+import com.planning.demomeetingplanner.Model.EquipmentType;
+import com.planning.demomeetingplanner.Model.FreeSlot;
+import com.planning.demomeetingplanner.Model.FreeSlotPage;
+import com.planning.demomeetingplanner.Model.MeetingType;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+// plages libres calculées sur les index réels : blocs de tampon contigus ou qui se recouvrent, trou d'exactement
+// la durée demandée, et pagination par page ou par curseur
+class FreeSlotSearchTest {
+
+	private static final LocalDate DAY = LocalDate.of(2024, 6, 12);
+
+	private final RoomScheduleIndex scheduleIndex = new RoomScheduleIndex();
+	private final RoomCatalogIndex catalogIndex = new RoomCatalogIndex(mock(RepoRoom.class), false);
+	private final FreeSlotSearch search = new FreeSlotSearch(scheduleIndex, catalogIndex,
+			new ReservationRules(scheduleIndex, catalogIndex));
+
+	@Test
+	void adjacentBufferBlocksLeaveNoGap() {
+		register(1);
+		// blocs [8:00, 11:00) et [11:00, 14:00) : ils se touchent, aucune plage entre les deux
+		book(1, 9, 0, 10, 0);
+		book(1, 12, 0, 13, 0);
+
+		List<FreeSlot> slots = search(60, 0, 20, null).items();
+
+		assertEquals(1, slots.size());
+		assertSlot(slots.get(0), 14, 0, 20, 0);
+	}
+
+	@Test
+	void overlappingBufferBlocksAreMerged() {
+		register(1);
+		// blocs [8:00, 11:00) et [10:30, 13:30) : fusionnés en un seul
+		book(1, 9, 0, 10, 0);
+		book(1, 11, 30, 12, 30);
+
+		List<FreeSlot> slots = search(30, 0, 20, null).items();
+
+		assertEquals(1, slots.size());
+		assertSlot(slots.get(0), 13, 30, 20, 0);
+	}
+
+	@Test
+	void gapOfExactlyTheDurationIsFree() {
+		register(1);
+		// tampon de 60 minutes de part et d'autre : il reste [11:00, 12:00) entre les deux réunions
+		book(1, 9, 0, 10, 0);
+		book(1, 13, 0, 14, 0);
+
+		List<FreeSlot> sixty = search(60, 0, 20, null).items();
+		assertEquals(2, sixty.size());
+		assertSlot(sixty.get(0), 11, 0, 12, 0);
+		assertEquals(LocalTime.of(11, 0), sixty.get(0).latestStart());
+
+		// une minute de plus ne tient plus dans le trou
+		List<FreeSlot> longer = search(61, 0, 20, null).items();
+		assertEquals(1, longer.size());
+		assertSlot(longer.get(0), 15, 0, 20, 0);
+	}
+
+	@Test
+	void cursorPagesMatchOffsetPages() {
+		for (int roomId = 1; roomId <= 7; roomId++) {
+			register(roomId);
+			book(roomId, 10 + roomId % 3, 0, 11 + roomId % 3, 0);
+		}
+		FreeSlotPage all = search(30, 0, 100, null);
+		assertEquals(14, all.total());
+		assertNull(all.nextCursor());
+
+		List<FreeSlot> byCursor = new ArrayList<>();
+		String after = null;
+		for (int page = 0; ; page++) {
+			FreeSlotPage byOffset = search(30, page, 4, null);
+			FreeSlotPage next = search(30, 0, 4, after);
+			assertEquals(byOffset.items(), next.items());
+			assertEquals(14, next.total());
+			byCursor.addAll(next.items());
+			after = next.nextCursor();
+			if (after == null) {
+				break;
+			}
+		}
+		assertEquals(all.items(), byCursor);
+		// le curseur d'une page d'une seule plage reprend à la deuxième
+		assertEquals(all.items().subList(1, 5), search(30, 0, 4, search(30, 0, 1, null).nextCursor()).items());
+		assertThrows(IllegalArgumentException.class, () -> search(30, 0, 4, "pas-un-curseur"));
+	}
+
+	private FreeSlotPage search(int duration, int page, int size, String after) {
+		return search.search(DAY, duration, 5, MeetingType.RS, page, size, after);
+	}
+
+	private void register(int roomId) {
+		Room room = new Room();
+		room.setId(roomId);
+		room.setCapacity(10);
+		room.setAvailability(true);
+		Equipment equipment = new Equipment();
+		equipment.setEquipmentType(EquipmentType.NEANT);
+		room.getEquipment().add(equipment);
+		catalogIndex.register(room);
+	}
+
+	private void book(int roomId, int startHour, int startMinute, int endHour, int endMinute) {
+		assertTrue(scheduleIndex.tryBook(roomId, PlanningTime.epochDay(DAY), startHour * 60 + startMinute,
+				endHour * 60 + endMinute));
+	}
+
+	private static void assertSlot(FreeSlot slot, int fromHour, int fromMinute, int toHour, int toMinute) {
+		assertEquals(LocalTime.of(fromHour, fromMinute), slot.from());
+		assertEquals(LocalTime.of(toHour, toMinute), slot.to());
+	}
+}
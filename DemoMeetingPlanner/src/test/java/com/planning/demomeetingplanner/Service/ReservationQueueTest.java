@@ -0,0 +1,183 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Journal.JournaledJdbc;
+import com.planning.demomeetingplanner.Model.Equipment;
+import com.planning.demomeetingplanner.Model.EquipmentType;
+import com.planning.demomeetingplanner.Model.Meeting;
+import com.planning.demomeetingplanner.Model.MeetingType;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.RejectionReason;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Model.TicketStatus;
+import com.planning.demomeetingplanner.Repository.RepoMeeting;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// file de réservations asynchrones sur un index réel et des dépôts simulés : file pleine, ordre de traitement,
+// échec d'écriture et panne avant l'écriture, url de rappel refusée
+class ReservationQueueTest {
+
+	private static final int ROOM = 1;
+	private static final Date MEETING_DATE = Date.valueOf("2024-06-12");
+
+	private final RepoRoom repoRoom = mock(RepoRoom.class);
+	private final RepoMeeting repoMeeting = mock(RepoMeeting.class);
+	private final RepoReservation repoReservation = mock(RepoReservation.class);
+	private final ReservationService reservationService = mock(ReservationService.class);
+	private final RoomUtilisation utilisation = mock(RoomUtilisation.class);
+	private final RoomScheduleIndex scheduleIndex = new RoomScheduleIndex();
+	private ReservationQueue queue;
+
+	@AfterEach
+	void stopQueue() throws InterruptedException {
+		if (queue != null) {
+			queue.stop();
+		}
+	}
+
+	@Test
+	void fullQueueRefusesNewRequests() {
+		queue = queue(2);
+
+		assertTrue(queue.submit(room(), meeting(9, 10), null).isPresent());
+		assertTrue(queue.submit(room(), meeting(11, 12), null).isPresent());
+		// le traitement n'est pas démarré : la troisième demande ne trouve plus de place
+		assertTrue(queue.submit(room(), meeting(14, 15), null).isEmpty());
+	}
+
+	@Test
+	void sameSlotIsGrantedInSubmissionOrder() throws Exception {
+		queue = queue(10);
+		long first = submit(9, 10);
+		long second = submit(9, 10);
+
+		queue.start();
+
+		assertEquals(TicketStatus.State.ACCEPTED, await(first).state());
+		TicketStatus refused = await(second);
+		assertEquals(TicketStatus.State.REJECTED, refused.state());
+		assertEquals(RejectionReason.SLOT_CONFLICT, refused.rejections().get(0).reason());
+		assertFalse(isFree(9, 10));
+	}
+
+	@Test
+	void failedCommitReleasesTheSlotAndReplaysTheRequest() throws Exception {
+		when(repoReservation.saveAll(any())).thenThrow(new DataIntegrityViolationException("écriture refusée"));
+		when(reservationService.reserveRoom(any(), any())).thenReturn(ReservationRules.ACCEPTED);
+		queue = queue(10);
+		long ticket = submit(9, 10);
+
+		queue.start();
+
+		// rejouée seule par ReservationService (simulé ici) : le créneau pris par le lot a été rendu
+		assertEquals(TicketStatus.State.ACCEPTED, await(ticket).state());
+		assertTrue(isFree(9, 10));
+	}
+
+	@Test
+	void failureBeforeCommitReleasesTheSlotsAndFailsTheBatch() throws Exception {
+		// la deuxième demande est refusée, et l'enregistrement de ce refus échoue
+		doThrow(new IllegalStateException("panne")).when(utilisation).rejected(anyInt(), anyLong(), any(), anyInt());
+		queue = queue(10);
+		long first = submit(9, 10);
+		long second = submit(9, 10);
+
+		queue.start();
+
+		assertEquals(TicketStatus.State.FAILED, await(first).state());
+		assertEquals(TicketStatus.State.FAILED, await(second).state());
+		assertTrue(isFree(9, 10));
+	}
+
+	@Test
+	void callbackToALocalAddressIsRefused() {
+		queue = queue(10);
+
+		assertThrows(IllegalArgumentException.class,
+				() -> queue.submit(room(), meeting(9, 10), "http://127.0.0.1:8080/rappel"));
+		assertThrows(IllegalArgumentException.class,
+				() -> queue.submit(room(), meeting(9, 10), "http://169.254.169.254/latest/meta-data"));
+		assertThrows(IllegalArgumentException.class,
+				() -> queue.submit(room(), meeting(9, 10), "file:///etc/passwd"));
+		assertTrue(queue.status(1).isEmpty());
+	}
+
+	private ReservationQueue queue(int capacity) {
+		when(repoRoom.findLockedById(anyInt())).thenAnswer(invocation -> Optional.of(room()));
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		RoomCatalogIndex catalogIndex = new RoomCatalogIndex(repoRoom, false);
+		catalogIndex.register(room());
+		return new ReservationQueue(reservationService, new ReservationRules(scheduleIndex, catalogIndex),
+				scheduleIndex, new RoomLocks(), mock(RoomCatalogCache.class), repoRoom, repoReservation,
+				new TransactionTemplate(transactionManager), mock(JournaledJdbc.class), mock(RoomReleaseScheduler.class),
+				new RoomClaims(false, 0, repoRoom, repoMeeting, repoReservation), mock(RoomChangeFeed.class), utilisation,
+				mock(ReservationMetrics.class), new SimpleMeterRegistry(), capacity, 200, Duration.ofMinutes(10), List.of());
+	}
+
+	private long submit(int startHour, int endHour) {
+		return queue.submit(room(), meeting(startHour, endHour), null).orElseThrow().ticket();
+	}
+
+	// Attend la fin du traitement du ticket, cinq secondes au plus
+	private TicketStatus await(long ticket) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		TicketStatus status = queue.status(ticket).orElseThrow();
+		while (status.state() == TicketStatus.State.PENDING && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+			status = queue.status(ticket).orElseThrow();
+		}
+		return status;
+	}
+
+	private boolean isFree(int startHour, int endHour) {
+		return scheduleIndex.isFree(ROOM, PlanningTime.epochDay(MEETING_DATE), startHour * 60, endHour * 60);
+	}
+
+	private static Room room() {
+		Room room = new Room();
+		room.setId(ROOM);
+		room.setCapacity(10);
+		room.setAvailability(true);
+		Equipment equipment = new Equipment();
+		equipment.setEquipmentType(EquipmentType.NEANT);
+		room.getEquipment().add(equipment);
+		return room;
+	}
+
+	private static Meeting meeting(int startHour, int endHour) {
+		Meeting meeting = new Meeting();
+		meeting.setMeetingDate(MEETING_DATE);
+		meeting.setStartTime(Time.valueOf(LocalTime.of(startHour, 0)));
+		meeting.setEndTime(Time.valueOf(LocalTime.of(endHour, 0)));
+		meeting.setNumberOfpeople(5);
+		meeting.setMeetingType(MeetingType.RS);
+		return meeting;
+	}
+}
@@ -0,0 +1,70 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.Equipment;
+import com.planning.demomeetingplanner.Model.EquipmentType;
+import com.planning.demomeetingplanner.Model.MeetingType;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static com.planning.demomeetingplanner.Model.RejectionReason.MISSING_EQUIPMENT;
+import static com.planning.demomeetingplanner.Model.RejectionReason.ROOM_CLOSED;
+import static com.planning.demomeetingplanner.Model.RejectionReason.SLOT_CONFLICT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+// heures d'ouverture propres à chaque salle : créneau accepté à l'intérieur, refusé s'il en déborde, en chemin
+// rapide comme en mode explication
+class ReservationRulesTest {
+
+	private static final int ROOM = 1;
+	private static final long DAY = PlanningTime.epochDay(LocalDate.of(2024, 6, 12));
+
+	private final RoomScheduleIndex scheduleIndex = new RoomScheduleIndex();
+	private final RoomCatalogIndex catalogIndex = new RoomCatalogIndex(mock(RepoRoom.class), false);
+	private final ReservationRules rules = new ReservationRules(scheduleIndex, catalogIndex);
+
+	@Test
+	void slotInsideTheRoomOpeningHoursIsAccepted() {
+		// salle ouverte de 9h à 17h
+		catalogIndex.register(room(9, 17));
+
+		assertEquals(ReservationRules.ACCEPTED, rules.check(ROOM, DAY, 9 * 60, 17 * 60, MeetingType.RS));
+		assertEquals(ReservationRules.ACCEPTED, rules.explain(ROOM, DAY, 9 * 60, 17 * 60, MeetingType.RS));
+	}
+
+	@Test
+	void slotOverflowingTheRoomOpeningHoursIsRejected() {
+		catalogIndex.register(room(9, 17));
+
+		assertEquals(ROOM_CLOSED.mask(), rules.check(ROOM, DAY, 8 * 60, 10 * 60, MeetingType.RS));
+		assertEquals(ROOM_CLOSED.mask(), rules.check(ROOM, DAY, 16 * 60, 18 * 60, MeetingType.RS));
+	}
+
+	@Test
+	void explainListsTheClosedRoomWithTheOtherRules() {
+		catalogIndex.register(room(9, 17));
+		scheduleIndex.tryBook(ROOM, DAY, 16 * 60, 17 * 60);
+
+		assertEquals(MISSING_EQUIPMENT.mask() | ROOM_CLOSED.mask() | SLOT_CONFLICT.mask(),
+				rules.explain(ROOM, DAY, 16 * 60, 18 * 60, MeetingType.VC));
+	}
+
+	private static Room room(int openHour, int closeHour) {
+		Room room = new Room();
+		room.setId(ROOM);
+		room.setCapacity(10);
+		room.setAvailability(true);
+		room.setOpenTime(Time.valueOf(LocalTime.of(openHour, 0)));
+		room.setCloseTime(Time.valueOf(LocalTime.of(closeHour, 0)));
+		Equipment equipment = new Equipment();
+		equipment.setEquipmentType(EquipmentType.NEANT);
+		room.getEquipment().add(equipment);
+		return room;
+	}
+}
@@ -0,0 +1,126 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.Equipment;
+import com.planning.demomeetingplanner.Model.EquipmentType;
+import com.planning.demomeetingplanner.Model.Meeting;
+import com.planning.demomeetingplanner.Model.MeetingType;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Repository.RepoMeeting;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReservationServiceConcurrencyTest {
+
+	private static final int ROOMS = 20;
+	private static final int THREADS = 16;
+	private static final int REQUESTS_PER_THREAD = 2_000;
+	private static final Date MEETING_DATE = Date.valueOf("2024-06-12");
+
+	@Test
+	void parallelReservationsNeverDoubleBook() throws Exception {
+		RepoRoom repoRoom = mock(RepoRoom.class);
+		RepoMeeting repoMeeting = mock(RepoMeeting.class);
+		when(repoRoom.findLockedById(anyInt())).thenAnswer(invocation -> Optional.of(room(invocation.getArgument(0))));
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+		RoomScheduleIndex scheduleIndex = new RoomScheduleIndex();
+		RoomCatalogIndex catalogIndex = new RoomCatalogIndex(repoRoom, false);
+		for (int id = 1; id <= ROOMS; id++) {
+			catalogIndex.register(room(id));
+		}
+		RoomCatalogCache catalogCache = new RoomCatalogCache(mock(RoomQueryService.class), repoRoom, 100,
+				Duration.ofSeconds(30));
+		ReservationService service = new ReservationService(repoRoom, repoMeeting, mock(RepoReservation.class),
+				scheduleIndex, catalogIndex, new ReservationRules(scheduleIndex, catalogIndex), catalogCache,
+				new RoomLocks(), new TransactionTemplate(transactionManager), mock(ReservationMetrics.class),
+				mock(RoomReleaseScheduler.class), new RoomClaims(false, 0, repoRoom, repoMeeting, mock(RepoReservation.class)),
+				mock(RoomChangeFeed.class), mock(RoomUtilisation.class), mock(ClusterRefresh.class));
+
+		// créneaux acceptés, par salle : [début, fin] en minutes
+		Map<Integer, List<int[]>> accepted = new ConcurrentHashMap<>();
+		AtomicInteger rejected = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			long seed = t;
+			futures.add(executor.submit(() -> {
+				Random random = new Random(seed);
+				start.await();
+				for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+					int roomId = 1 + random.nextInt(ROOMS);
+					int startMinute = 8 * 60 + random.nextInt(11 * 4) * 15;
+					int endMinute = startMinute + 30 + random.nextInt(3) * 15;
+					Meeting meeting = meeting(startMinute, endMinute);
+					if (service.reserveRoom(room(roomId), meeting) == ReservationRules.ACCEPTED) {
+						accepted.computeIfAbsent(roomId, id -> Collections.synchronizedList(new ArrayList<>()))
+								.add(new int[]{startMinute, endMinute});
+					} else {
+						rejected.incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		int total = THREADS * REQUESTS_PER_THREAD;
+		int bookings = 0;
+		for (List<int[]> slots : accepted.values()) {
+			slots.sort(Comparator.comparingInt(slot -> slot[0]));
+			for (int i = 1; i < slots.size(); i++) {
+				assertTrue(slots.get(i - 1)[1] + RoomScheduleIndex.BUFFER_MINUTES <= slots.get(i)[0],
+						"deux réservations se chevauchent dans la même salle");
+			}
+			bookings += slots.size();
+		}
+		assertEquals(total, bookings + rejected.get());
+		assertEquals(bookings, scheduleIndex.size());
+	}
+
+	private static Room room(int id) {
+		Room room = new Room();
+		room.setId(id);
+		room.setCapacity(10);
+		room.setAvailability(true);
+		Equipment equipment = new Equipment();
+		equipment.setEquipmentType(EquipmentType.NEANT);
+		room.getEquipment().add(equipment);
+		return room;
+	}
+
+	private static Meeting meeting(int startMinute, int endMinute) {
+		Meeting meeting = new Meeting();
+		meeting.setMeetingDate(MEETING_DATE);
+		meeting.setStartTime(Time.valueOf(LocalTime.ofSecondOfDay(startMinute * 60L)));
+		meeting.setEndTime(Time.valueOf(LocalTime.ofSecondOfDay(endMinute * 60L)));
+		meeting.setNumberOfpeople(5);
+		meeting.setMeetingType(MeetingType.RS);
+		return meeting;
+	}
+}
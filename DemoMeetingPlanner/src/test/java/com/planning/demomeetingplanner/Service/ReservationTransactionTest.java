@@ -0,0 +1,104 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.Equipment;
+import com.planning.demomeetingplanner.Model.EquipmentType;
+import com.planning.demomeetingplanner.Model.Meeting;
+import com.planning.demomeetingplanner.Model.MeetingType;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Repository.RepoEquipment;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// réservation à travers le vrai gestionnaire de transactions (H2 du profil memory) : une réservation validée est
+// en base et dans l'index, une réservation dont l'écriture échoue ne laisse rien ni en base ni dans l'index
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:reservation-transaction;DB_CLOSE_DELAY=-1;MODE=MySQL",
+		"planner.journal.enabled=false"})
+@ActiveProfiles("memory")
+class ReservationTransactionTest {
+
+	private static final LocalDate DAY = LocalDate.of(2030, 6, 12);
+
+	@Autowired
+	private ReservationService reservationService;
+	@Autowired
+	private RoomScheduleIndex scheduleIndex;
+	@Autowired
+	private RoomCatalogIndex catalogIndex;
+	@Autowired
+	private RepoRoom repoRoom;
+	@Autowired
+	private RepoEquipment repoEquipment;
+	@Autowired
+	private RepoReservation repoReservation;
+
+	@Test
+	void committedReservationIsStoredAndIndexed() {
+		Room room = seedRoom();
+
+		assertEquals(ReservationRules.ACCEPTED, reservationService.reserveRoom(room, meeting("Point d'équipe")));
+
+		assertEquals(1, repoReservation.findByRoomIdAndReservationDateBetweenOrderByReservationDateAscStartTimeAsc(
+				room.getId(), DAY, DAY).size());
+		assertFalse(repoRoom.findById(room.getId()).orElseThrow().isAvailability());
+		assertFalse(scheduleIndex.isFree(room.getId(), PlanningTime.epochDay(DAY), 9 * 60, 10 * 60));
+	}
+
+	@Test
+	void failedWriteRollsBackAndFreesTheSlot() {
+		Room room = seedRoom();
+
+		// nom plus long que la colonne meeting_name : l'insertion échoue dans la transaction
+		assertThrows(DataAccessException.class, () -> reservationService.reserveRoom(room, meeting("x".repeat(300))));
+
+		assertTrue(repoReservation.findByRoomIdAndReservationDateBetweenOrderByReservationDateAscStartTimeAsc(
+				room.getId(), DAY, DAY).isEmpty());
+		assertTrue(repoRoom.findById(room.getId()).orElseThrow().isAvailability());
+		assertTrue(scheduleIndex.isFree(room.getId(), PlanningTime.epochDay(DAY), 9 * 60, 10 * 60));
+		// le créneau libéré peut être réservé de nouveau
+		assertEquals(ReservationRules.ACCEPTED, reservationService.reserveRoom(room, meeting("Point d'équipe")));
+	}
+
+	private Room seedRoom() {
+		Room room = new Room();
+		room.setName("Salle transaction");
+		room.setCapacity(10);
+		room.setAvailability(true);
+		room.setOpenTime(Time.valueOf("08:00:00"));
+		room.setCloseTime(Time.valueOf("20:00:00"));
+		repoRoom.save(room);
+		Equipment equipment = new Equipment();
+		equipment.setEquipmentType(EquipmentType.NEANT);
+		equipment.setRoom(room);
+		repoEquipment.save(equipment);
+		room.getEquipment().add(equipment);
+		catalogIndex.register(room);
+		return room;
+	}
+
+	private static Meeting meeting(String name) {
+		Meeting meeting = new Meeting();
+		meeting.setName(name);
+		meeting.setMeetingDate(Date.valueOf(DAY));
+		meeting.setStartTime(Time.valueOf("09:00:00"));
+		meeting.setEndTime(Time.valueOf("10:00:00"));
+		meeting.setNumberOfpeople(5);
+		meeting.setMeetingType(MeetingType.RS);
+		return meeting;
+	}
+}
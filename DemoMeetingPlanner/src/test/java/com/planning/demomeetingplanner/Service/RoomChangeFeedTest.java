@@ -0,0 +1,109 @@
+package com.planning.demomeetingplanner.Service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// flux des changements sans serveur : les événements envoyés à chaque abonné sont relus en texte SSE
+// reprise par Last-Event-ID, anneau dépassé (resync), id venu d'avant un redémarrage et battement de maintien
+class RoomChangeFeedTest {
+
+	private final List<String> events = new CopyOnWriteArrayList<>();
+	private RoomChangeFeed feed;
+
+	@AfterEach
+	void stopFeed() {
+		if (feed != null) {
+			feed.stop();
+		}
+	}
+
+	@Test
+	void reconnectionResumesAfterLastEventId() throws InterruptedException {
+		feed = feed(8, Duration.ofMinutes(1));
+		for (int roomId = 0; roomId < 5; roomId++) {
+			feed.deleted(roomId);
+		}
+
+		feed.subscribe(2L);
+
+		assertEquals(List.of("id:3\nevent:deleted", "id:4\nevent:deleted"), await(2));
+	}
+
+	@Test
+	void subscriberOvertakenByTheRingIsResynced() throws InterruptedException {
+		feed = feed(4, Duration.ofMinutes(1));
+		for (int roomId = 0; roomId < 10; roomId++) {
+			feed.deleted(roomId);
+		}
+
+		// la séquence 2 a été écrasée depuis longtemps (l'anneau garde 6 à 9)
+		feed.subscribe(1L);
+		assertEquals(List.of("id:9\nevent:resync"), await(1));
+
+		// les changements suivants arrivent normalement
+		feed.released(1);
+		assertEquals("id:10\nevent:released", await(2).get(1));
+	}
+
+	@Test
+	void eventIdFromBeforeARestartIsResynced() throws InterruptedException {
+		feed = feed(8, Duration.ofMinutes(1));
+		feed.deleted(1);
+
+		feed.subscribe(100L);
+
+		assertEquals(List.of("id:0\nevent:resync"), await(1));
+	}
+
+	@Test
+	void idleSubscriberReceivesHeartbeats() throws InterruptedException {
+		feed = feed(8, Duration.ofMillis(100));
+
+		feed.subscribe(null);
+
+		List<String> received = await(2);
+		assertTrue(received.stream().allMatch(event -> event.equals(":heartbeat")), received.toString());
+	}
+
+	private RoomChangeFeed feed(int bufferSize, Duration heartbeat) {
+		return new RoomChangeFeed(bufferSize, 1, Duration.ofMinutes(1), heartbeat) {
+			@Override
+			SseEmitter newEmitter(long timeoutMillis) {
+				return new SseEmitter(timeoutMillis) {
+					// garde les lignes de l'événement (id, event, commentaire) sans ses données JSON
+					@Override
+					public void send(SseEventBuilder builder) throws IOException {
+						StringBuilder text = new StringBuilder();
+						for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+							if (part.getData() instanceof String line) {
+								text.append(line);
+							}
+						}
+						int data = text.indexOf("data:");
+						events.add((data < 0 ? text : text.substring(0, data)).toString().strip());
+					}
+				};
+			}
+		};
+	}
+
+	// Événements reçus une fois qu'il y en a au moins count, cinq secondes au plus
+	private List<String> await(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (events.size() < count && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		return List.copyOf(events);
+	}
+}
@@ -0,0 +1,73 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.RejectionReason;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Repository.RepoMeeting;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// prise d'une salle en mode cluster : une salle gardée par une autre instance est attendue, et son refus n'est
+// un conflit de créneau que si une réservation en base chevauche la demande
+class RoomClaimsTest {
+
+	private static final int ROOM = 1;
+	private static final long DAY = PlanningTime.epochDay(LocalDate.of(2024, 6, 12));
+
+	private final RepoRoom repoRoom = mock(RepoRoom.class);
+	private final RepoReservation repoReservation = mock(RepoReservation.class);
+	private final RoomClaims roomClaims = new RoomClaims(true, 50, repoRoom, mock(RepoMeeting.class), repoReservation);
+
+	@Test
+	void roomHeldByAnotherInstanceIsClaimedOnceReleased() {
+		Room room = new Room();
+		room.setId(ROOM);
+		// verrouillée par une autre instance au premier essai, libre au second
+		when(repoRoom.claimAllByIdIn(any())).thenReturn(List.of(), List.of(room));
+		when(repoRoom.existsById(ROOM)).thenReturn(true);
+
+		assertEquals(room, roomClaims.claim(ROOM).orElseThrow());
+		verify(repoRoom, times(2)).claimAllByIdIn(any());
+	}
+
+	@Test
+	void roomStillHeldWithoutOverlapIsNotASlotConflict() {
+		when(repoRoom.claimAllByIdIn(any())).thenReturn(List.of());
+		when(repoRoom.existsById(ROOM)).thenReturn(true);
+
+		assertTrue(roomClaims.claim(ROOM).isEmpty());
+		assertThrows(CannotAcquireLockException.class, () -> roomClaims.claimFailure(ROOM, DAY, 9 * 60, 10 * 60));
+	}
+
+	@Test
+	void roomStillHeldWithAnOverlapInTheDatabaseIsASlotConflict() {
+		when(repoRoom.existsById(ROOM)).thenReturn(true);
+		when(repoReservation.existsOverlap(anyInt(), any(), any(), any())).thenReturn(true);
+
+		assertEquals(RejectionReason.SLOT_CONFLICT.mask(), roomClaims.claimFailure(ROOM, DAY, 9 * 60, 10 * 60));
+	}
+
+	@Test
+	void unknownRoomIsRejectedWithoutWaiting() {
+		when(repoRoom.claimAllByIdIn(any())).thenReturn(List.of());
+
+		assertTrue(roomClaims.claim(ROOM).isEmpty());
+		verify(repoRoom, times(1)).claimAllByIdIn(any());
+		assertEquals(RejectionReason.UNKNOWN_ROOM.mask(), roomClaims.claimFailure(ROOM, DAY, 9 * 60, 10 * 60));
+	}
+}
@@ -0,0 +1,83 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planning.demomeetingplanner.Journal.JournaledJdbc;
+import com.planning.demomeetingplanner.Model.ImportReport;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// import JSON sans base : éléments qui ne sont pas des objets rejetés sans arrêter la lecture, JSON mal formé
+// rapporté à sa position après les lots déjà écrits
+class RoomImportServiceTest {
+
+	private final JournaledJdbc journaledJdbc = mock(JournaledJdbc.class);
+	private final RoomCatalogIndex catalogIndex = new RoomCatalogIndex(mock(RepoRoom.class), false);
+	private final AtomicInteger nextId = new AtomicInteger(1);
+
+	@Test
+	void nonObjectElementsAreRejectedAndReadingContinues() throws IOException {
+		ImportReport report = service(10).importJson(json("""
+				[{"name": "A", "capacity": 4}, 42, [1, {"name": "X"}], "texte", {"name": "B", "capacity": 6}]"""));
+
+		assertEquals(2, report.imported());
+		assertEquals(List.of(2L, 3L, 4L), report.errors().stream().map(ImportReport.RowError::row).toList());
+		assertEquals(2, catalogIndex.size());
+	}
+
+	@Test
+	void malformedJsonKeepsTheWrittenRoomsAndReportsItsPosition() throws IOException {
+		// lots de deux : A et B sont écrits pendant la lecture, C à la fin
+		ImportReport report = service(2).importJson(json("""
+				[{"name": "A", "capacity": 4}, {"name": "B", "capacity": 6}, {"name": "C", "capacity": 8}, {"name": """));
+
+		assertEquals(3, report.imported());
+		assertEquals(1, report.errors().size());
+		assertEquals(4, report.errors().get(0).row());
+		assertTrue(report.errors().get(0).message().startsWith("JSON invalide, import interrompu"));
+		assertEquals(3, catalogIndex.size());
+	}
+
+	@Test
+	void truncatedArrayIsReported() throws IOException {
+		ImportReport report = service(10).importJson(json("[{\"name\": \"A\", \"capacity\": 4}"));
+
+		assertEquals(1, report.imported());
+		assertEquals(2, report.errors().get(0).row());
+	}
+
+	@SuppressWarnings("unchecked")
+	private RoomImportService service(int batchSize) {
+		// chaque ligne insérée reçoit une id, comme avec les clés générées par la base
+		doAnswer(invocation -> {
+			List<Object> entities = invocation.getArgument(1);
+			BiConsumer<Object, Integer> setId = invocation.getArgument(3);
+			entities.forEach(entity -> setId.accept(entity, nextId.getAndIncrement()));
+			return entities.size();
+		}).when(journaledJdbc).insertAll(any(), any(), any(), any());
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		return new RoomImportService(new ObjectMapper(), journaledJdbc, new TransactionTemplate(transactionManager),
+				catalogIndex, mock(RoomCatalogCache.class), mock(RoomChangeFeed.class), batchSize);
+	}
+
+	private static ByteArrayInputStream json(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,60 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Repository.RepoMeeting;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// libérations programmées : une réservation déjà terminée n'est pas programmée et garde son créneau dans l'index,
+// une salle supprimée perd ses libérations en attente
+class RoomReleaseSchedulerTest {
+
+	private static final int ROOM = 1;
+
+	private final RepoRoom repoRoom = mock(RepoRoom.class);
+	private final RoomScheduleIndex scheduleIndex = new RoomScheduleIndex();
+	private final RoomReleaseScheduler scheduler = scheduler();
+
+	@Test
+	void endedReservationKeepsItsSlot() {
+		long day = PlanningTime.epochDay(LocalDate.now().minusDays(1));
+		scheduleIndex.tryBook(ROOM, day, 9 * 60, 10 * 60);
+
+		scheduler.schedule(ROOM, day, 9 * 60, 10 * 60);
+
+		assertEquals(0, scheduler.pending());
+		assertFalse(scheduleIndex.isFree(ROOM, day, 9 * 60, 10 * 60));
+	}
+
+	@Test
+	void deletedRoomForgetsItsReleases() {
+		long day = PlanningTime.epochDay(LocalDate.now().plusDays(1));
+		scheduler.schedule(ROOM, day, 9 * 60, 10 * 60);
+		scheduler.schedule(ROOM, day + 30, 9 * 60, 10 * 60);
+		scheduler.schedule(ROOM + 1, day, 9 * 60, 10 * 60);
+
+		scheduler.forget(ROOM);
+
+		assertEquals(1, scheduler.pending());
+	}
+
+	private RoomReleaseScheduler scheduler() {
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		return new RoomReleaseScheduler(repoRoom, mock(RepoReservation.class), scheduleIndex,
+				mock(RoomCatalogCache.class), new RoomLocks(), new TransactionTemplate(transactionManager),
+				new RoomClaims(false, 0, repoRoom, mock(RepoMeeting.class), mock(RepoReservation.class)), mock(RoomChangeFeed.class));
+	}
+}
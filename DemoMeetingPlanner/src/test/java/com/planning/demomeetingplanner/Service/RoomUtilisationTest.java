@@ -0,0 +1,127 @@
+package com.planning.demomeetingplanner.Service;
+
+import com.planning.demomeetingplanner.Model.MeetingType;
+import com.planning.demomeetingplanner.Model.PlanningTime;
+import com.planning.demomeetingplanner.Model.RejectionReason;
+import com.planning.demomeetingplanner.Model.Room;
+import com.planning.demomeetingplanner.Model.UtilisationReport;
+import com.planning.demomeetingplanner.Model.UtilisationReport.GroupBy;
+import com.planning.demomeetingplanner.Model.UtilisationRow;
+import com.planning.demomeetingplanner.Repository.RepoReservation;
+import com.planning.demomeetingplanner.Repository.RepoRoom;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+// agrégats d'utilisation sans base : salles réservées et salles seulement ouvertes, tranche de capacité retenue
+// à la réservation, refus d'une salle inconnue et motifs de refus
+class RoomUtilisationTest {
+
+	private static final int SMALL_ROOM = 1;
+	private static final int IDLE_ROOM = 2;
+	// id élevé : les agrégats d'une journée ne dépendent que des salles qui y sont réservées
+	private static final int LARGE_ID_ROOM = 1_000_000;
+	// salle ouverte de 8h à 20h, jours ouvrés uniquement
+	private static final long OPEN_MINUTES = 12 * 60;
+
+	private final RoomCatalogIndex catalogIndex = new RoomCatalogIndex(mock(RepoRoom.class), false);
+	private final RoomUtilisation utilisation = new RoomUtilisation(mock(RepoReservation.class), mock(RepoRoom.class),
+			catalogIndex, 400);
+	// un mercredi à venir : jamais hors de la période conservée
+	private final LocalDate date = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.WEDNESDAY));
+	private final long day = PlanningTime.epochDay(date);
+
+	@Test
+	void reportByRoomListsBookedAndIdleRooms() {
+		catalogIndex.register(room(SMALL_ROOM, 6));
+		catalogIndex.register(room(IDLE_ROOM, 6));
+		catalogIndex.register(room(LARGE_ID_ROOM, 40));
+
+		utilisation.booked(SMALL_ROOM, day, 9 * 60, 10 * 60, 4, MeetingType.RS);
+		utilisation.booked(SMALL_ROOM, day, 14 * 60, 14 * 60 + 30, 2, MeetingType.VC);
+		utilisation.booked(LARGE_ID_ROOM, day, 9 * 60, 12 * 60, 30, MeetingType.RC);
+
+		List<UtilisationRow> rows = utilisation.report(date, date, GroupBy.ROOM).rows();
+
+		assertEquals(List.of("1", "2", "1000000"), rows.stream().map(UtilisationRow::group).toList());
+		UtilisationRow small = rows.get(0);
+		assertEquals(2, small.bookings());
+		assertEquals(90, small.bookedMinutes());
+		assertEquals(OPEN_MINUTES, small.availableMinutes());
+		assertEquals(6, small.people());
+		assertEquals(12, small.seats());
+		UtilisationRow idle = rows.get(1);
+		assertEquals(0, idle.bookings());
+		assertEquals(OPEN_MINUTES, idle.availableMinutes());
+		assertEquals(180, rows.get(2).bookedMinutes());
+	}
+
+	@Test
+	void bandIsTheCapacityAtBookingTime() {
+		catalogIndex.register(room(SMALL_ROOM, 6));
+		utilisation.booked(SMALL_ROOM, day, 9 * 60, 10 * 60, 4, MeetingType.RS);
+		// salle agrandie dans la journée : la réservation précédente reste dans sa tranche
+		catalogIndex.register(room(SMALL_ROOM, 30));
+		utilisation.booked(SMALL_ROOM, day, 11 * 60, 12 * 60, 25, MeetingType.RS);
+
+		List<UtilisationRow> rows = utilisation.report(date, date, GroupBy.BAND).rows();
+
+		assertEquals(List.of("1-6", "21+"), rows.stream().map(UtilisationRow::group).toList());
+		assertEquals(1, rows.get(0).bookings());
+		assertEquals(6, rows.get(0).seats());
+		// les minutes d'ouverture suivent la capacité actuelle
+		assertEquals(0, rows.get(0).availableMinutes());
+		assertEquals(1, rows.get(1).bookings());
+		assertEquals(30, rows.get(1).seats());
+		assertEquals(OPEN_MINUTES, rows.get(1).availableMinutes());
+	}
+
+	@Test
+	void rejectionsAreCountedByRoomAndByReason() {
+		catalogIndex.register(room(SMALL_ROOM, 6));
+
+		utilisation.rejected(SMALL_ROOM, day, MeetingType.VC,
+				RejectionReason.MISSING_EQUIPMENT.mask() | RejectionReason.SLOT_CONFLICT.mask());
+		utilisation.rejected(42, day, MeetingType.RS, RejectionReason.UNKNOWN_ROOM.mask());
+
+		UtilisationReport report = utilisation.report(date, date, GroupBy.ROOM);
+
+		assertEquals(List.of("inconnue", "1"), report.rows().stream().map(UtilisationRow::group).toList());
+		assertEquals(1, report.rows().get(0).rejections());
+		assertEquals(1, report.rows().get(1).rejections());
+		// deux règles en échec pour la première demande : chacune est comptée
+		assertEquals(Map.of("weekend", 0L, "outside_hours", 0L, "unknown_room", 1L, "missing_equipment", 1L,
+				"room_closed", 0L, "slot_conflict", 1L), report.rejectionsByReason());
+	}
+
+	@Test
+	void dayReportCoversTheWholeParkOnWorkingDaysOnly() {
+		catalogIndex.register(room(SMALL_ROOM, 6));
+		catalogIndex.register(room(IDLE_ROOM, 12));
+		utilisation.booked(IDLE_ROOM, day, 8 * 60, 20 * 60, 10, MeetingType.SPEC);
+
+		// du mercredi au dimanche : trois jours ouvrés
+		List<UtilisationRow> rows = utilisation.report(date, date.plusDays(4), GroupBy.DAY).rows();
+
+		assertEquals(3, rows.size());
+		assertEquals(date.toString(), rows.get(0).group());
+		assertEquals(2 * OPEN_MINUTES, rows.get(0).availableMinutes());
+		assertEquals(0.5, rows.get(0).utilisation());
+		assertEquals(0, rows.get(1).bookings());
+	}
+
+	private static Room room(int roomId, int capacity) {
+		Room room = new Room();
+		room.setId(roomId);
+		room.setCapacity(capacity);
+		room.setAvailability(true);
+		return room;
+	}
+}
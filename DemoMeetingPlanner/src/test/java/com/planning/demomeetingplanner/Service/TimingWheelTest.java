@@ -0,0 +1,61 @@
+package com.planning.demomeetingplanner.Service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// roue temporelle : chaque échéance tombe exactement à son tic, de part et d'autre de chaque changement de niveau
+// (64, 64² et 64³ minutes), y compris quand la roue ne part pas d'un tic aligné ; échéances annulées
+class TimingWheelTest {
+
+	private static final long[] DELAYS = {1, 63, 64, 65, 4095, 4096, 4097, 262143, 262144, 262145};
+
+	@Test
+	void deadlinesExpireAtTheirTickOnEveryLevel() {
+		for (long start : new long[]{0, 1000, 262100}) {
+			TimingWheel wheel = new TimingWheel(start);
+			for (long delay : DELAYS) {
+				assertTrue(wheel.add(start + delay, delay));
+			}
+			assertEquals(DELAYS.length, wheel.size());
+
+			for (long delay : DELAYS) {
+				assertEquals(0, wheel.advanceTo(start + delay - 1).length);
+				assertArrayEquals(new long[]{start + delay, delay}, wheel.advanceTo(start + delay));
+			}
+			assertEquals(0, wheel.size());
+		}
+	}
+
+	@Test
+	void reachedDeadlineIsLeftToTheCaller() {
+		TimingWheel wheel = new TimingWheel(500);
+
+		assertFalse(wheel.add(500, 1));
+		assertFalse(wheel.add(20, 1));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void cancelledDeadlinesNeverExpire() {
+		TimingWheel wheel = new TimingWheel(0);
+		for (long delay : DELAYS) {
+			// salle 1 et salle 2 à chaque niveau
+			wheel.add(delay, 1L << 32 | delay);
+			wheel.add(delay, 2L << 32 | delay);
+		}
+
+		assertEquals(DELAYS.length, wheel.removeIf(payload -> (int) (payload >>> 32) == 1));
+		assertEquals(DELAYS.length, wheel.size());
+
+		long[] expired = wheel.advanceTo(DELAYS[DELAYS.length - 1]);
+		assertEquals(DELAYS.length * 2, expired.length);
+		for (int i = 0; i < expired.length; i += 2) {
+			assertEquals(2, (int) (expired[i + 1] >>> 32));
+		}
+		assertEquals(0, wheel.size());
+	}
+}